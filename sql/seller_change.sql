@@ -0,0 +1,7 @@
+create table if not exists seller_change (
+    Seq bigint not null auto_increment primary key,
+    SellerId int not null,
+    Op char(1) not null,
+    ClientId bigint not null,
+    ChangedAt timestamp not null default current_timestamp
+);
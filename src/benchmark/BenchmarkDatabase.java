@@ -0,0 +1,116 @@
+package benchmark;
+
+import db.DB;
+import db.DbException;
+import model.dao.DaoFactory;
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+public class BenchmarkDatabase {
+
+    public static final String DEFAULT_URL = "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+
+    private final List<Department> departments = new ArrayList<>();
+    private final List<Integer> sellerIds = new ArrayList<>();
+
+    public static BenchmarkDatabase start(String url, int poolSize){
+        Properties props = new Properties();
+        props.setProperty("dbUrl", url);
+        props.setProperty("user", System.getProperty("bench.user", "sa"));
+        props.setProperty("password", System.getProperty("bench.password", ""));
+        props.setProperty("pool.maxSize", String.valueOf(poolSize));
+        props.setProperty("pool.minSize", "1");
+        DB.setProperties(props);
+        DaoFactory.getDepartmentCache().clear();
+        DaoFactory.getSalarySummaryCache().invalidate();
+        createSchema();
+        return new BenchmarkDatabase();
+    }
+
+    public static void createSchema(){
+        Connection conn = DB.getConnection();
+        Statement st = null;
+        try {
+            st = conn.createStatement();
+            st.execute("create table if not exists department (" +
+                    "Id int not null auto_increment primary key, " +
+                    "Name varchar(60) default null)");
+            st.execute("create table if not exists seller (" +
+                    "Id int not null auto_increment primary key, " +
+                    "Name varchar(60) not null, " +
+                    "Email varchar(100) not null, " +
+                    "BirthDate datetime not null, " +
+                    "BaseSalary double not null, " +
+                    "DepartmentId int not null, " +
+                    "foreign key (DepartmentId) references department (Id))");
+            st.execute("create index if not exists seller_name_idx on seller (Name)");
+            st.execute("create index if not exists seller_email_idx on seller (Email)");
+            st.execute("create index if not exists department_name_idx on department (Name)");
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.closeStatement(st);
+            DB.closeConnection(conn);
+        }
+    }
+
+    public void seed(int departmentCount, int sellerCount, long randomSeed){
+        DepartmentDao departmentDao = DaoFactory.createDepartmentDao();
+        SellerDao sellerDao = DaoFactory.createSellerDao();
+        Random random = new Random(randomSeed);
+
+        List<Department> newDepartments = new ArrayList<>(departmentCount);
+        for (int i = 0; i < departmentCount; i++){
+            newDepartments.add(new Department(null, "Department " + i));
+        }
+        departmentDao.insertAll(newDepartments);
+        departments.addAll(newDepartments);
+
+        int chunk = 50_000;
+        for (int from = 0; from < sellerCount; from += chunk){
+            int to = Math.min(from + chunk, sellerCount);
+            List<Seller> sellers = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++){
+                sellers.add(randomSeller(random, "Seller " + i));
+            }
+            sellerDao.insertAll(sellers);
+            for (Seller seller : sellers){
+                sellerIds.add(seller.getId());
+            }
+        }
+    }
+
+    public Seller randomSeller(Random random, String name){
+        Department dep = departments.get(random.nextInt(departments.size()));
+        Date birthDate = new Date(-315_619_200_000L + (long) random.nextInt(15_000) * 86_400_000L);
+        return new Seller(null, name, name.replace(' ', '.').toLowerCase() + "@bench.local",
+                birthDate, 1000.0 + random.nextInt(9000), dep);
+    }
+
+    public Department randomDepartment(Random random){
+        return departments.get(random.nextInt(departments.size()));
+    }
+
+    public Integer randomSellerId(Random random){
+        return sellerIds.get(random.nextInt(sellerIds.size()));
+    }
+
+    public List<Department> getDepartments(){
+        return departments;
+    }
+
+    public int getSellerCount(){
+        return sellerIds.size();
+    }
+}
@@ -0,0 +1,89 @@
+package benchmark;
+
+import db.DB;
+import db.DbException;
+import model.dao.DaoFactory;
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class BulkInsertBenchmark {
+
+    public static void main(String[] args) {
+        int[] rowCounts = args.length > 0 ? parseCounts(args) : new int[]{10_000, 100_000, 1_000_000};
+
+        DepartmentDao departmentDao = DaoFactory.createDepartmentDao();
+        SellerDao sellerDao = DaoFactory.createSellerDao();
+
+        Department dep = new Department(null, "Benchmark");
+        departmentDao.insert(dep);
+
+        try {
+            System.out.printf("%10s %15s %15s %10s%n", "rows", "insert loop ms", "insertAll ms", "speedup");
+            for (int rows : rowCounts){
+                long loopMillis = time(() -> {
+                    for (Seller seller : generate(rows, dep)){
+                        sellerDao.insert(seller);
+                    }
+                });
+                deleteSellers(dep);
+
+                List<Seller> sellers = generate(rows, dep);
+                long batchMillis = time(() -> sellerDao.insertAll(sellers));
+                deleteSellers(dep);
+
+                System.out.printf("%10d %15d %15d %9.1fx%n",
+                        rows, loopMillis, batchMillis, loopMillis / (double) Math.max(batchMillis, 1));
+            }
+        } finally {
+            departmentDao.deleteById(dep.getId());
+            DB.closeConnection();
+        }
+    }
+
+    private static List<Seller> generate(int rows, Department dep){
+        List<Seller> list = new ArrayList<>(rows);
+        Date birthDate = new Date();
+        for (int i = 0; i < rows; i++){
+            list.add(new Seller(null, "Seller " + i, "seller" + i + "@bench.local", birthDate, 1000.0 + i % 5000, dep));
+        }
+        return list;
+    }
+
+    private static long time(Runnable action){
+        long start = System.nanoTime();
+        action.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static void deleteSellers(Department dep){
+        Connection conn = DB.getConnection();
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement("delete from seller where DepartmentId = ?");
+            ps.setInt(1, dep.getId());
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        } finally {
+            DB.closeStatement(ps);
+            DB.closeConnection(conn);
+        }
+    }
+
+    private static int[] parseCounts(String[] args){
+        int[] counts = new int[args.length];
+        for (int i = 0; i < args.length; i++){
+            counts[i] = Integer.parseInt(args[i]);
+        }
+        return counts;
+    }
+}
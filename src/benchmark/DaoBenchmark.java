@@ -0,0 +1,202 @@
+package benchmark;
+
+import db.DB;
+import model.dao.DaoFactory;
+import model.dao.SellerDao;
+import model.entities.Seller;
+import model.services.DepartmentService;
+import model.services.SellerService;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DaoBenchmark {
+
+    interface Operation {
+        void run(Random random);
+    }
+
+    private final BenchmarkDatabase database;
+    private final long warmupMillis;
+    private final long measureMillis;
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private final AtomicInteger insertCounter = new AtomicInteger();
+
+    public DaoBenchmark(BenchmarkDatabase database, long warmupMillis, long measureMillis){
+        this.database = database;
+        this.warmupMillis = warmupMillis;
+        this.measureMillis = measureMillis;
+
+        SellerDao sellerDao = DaoFactory.createSellerDao();
+        SellerService sellerService = new SellerService();
+        DepartmentService departmentService = new DepartmentService();
+
+        operations.put("seller.insert", random ->
+                sellerDao.insert(database.randomSeller(random, "Bench " + insertCounter.incrementAndGet())));
+        operations.put("seller.update", random -> {
+            Seller seller = database.randomSeller(random, "Updated " + random.nextInt(1000));
+            seller.setId(database.randomSellerId(random));
+            sellerDao.update(seller);
+        });
+        operations.put("seller.findById", random -> sellerDao.findById(database.randomSellerId(random)));
+        operations.put("seller.findAll", random -> sellerDao.findAll());
+        operations.put("seller.findByDepartment", random -> sellerDao.findByDepartment(database.randomDepartment(random)));
+        operations.put("sellerService.saveOrUpdate", random -> {
+            Seller seller = database.randomSeller(random, "Service " + random.nextInt(1000));
+            seller.setId(database.randomSellerId(random));
+            sellerService.saveOrUpdate(seller);
+        });
+        operations.put("departmentService.findAll", random -> departmentService.findAll());
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("bench.dbUrl", BenchmarkDatabase.DEFAULT_URL);
+        int departments = Integer.getInteger("bench.departments", 50);
+        int sellers = Integer.getInteger("bench.sellers", 100_000);
+        long warmupMillis = Long.getLong("bench.warmupMillis", 3000L);
+        long measureMillis = Long.getLong("bench.measureMillis", 10000L);
+        String output = System.getProperty("bench.output", "bench-results.json");
+        String filter = System.getProperty("bench.operations", "");
+        int[] threadCounts = parseInts(System.getProperty("bench.threads", "1,4"));
+
+        int maxThreads = 1;
+        for (int t : threadCounts){
+            maxThreads = Math.max(maxThreads, t);
+        }
+
+        BenchmarkDatabase database = BenchmarkDatabase.start(url, maxThreads + 1);
+        database.seed(departments, sellers, 42L);
+
+        DaoBenchmark benchmark = new DaoBenchmark(database, warmupMillis, measureMillis);
+        List<Result> results = new ArrayList<>();
+        for (int threads : threadCounts){
+            for (Map.Entry<String, Operation> entry : benchmark.operations.entrySet()){
+                if (!filter.isEmpty() && !filter.contains(entry.getKey())){
+                    continue;
+                }
+                Result result = benchmark.run(entry.getKey(), entry.getValue(), threads);
+                System.out.println(result);
+                results.add(result);
+            }
+        }
+
+        writeJson(output, url, departments, sellers, results);
+        System.out.println("Results written to " + output);
+        DB.closeConnection();
+    }
+
+    private Result run(String name, Operation operation, int threads) throws InterruptedException {
+        measure(operation, threads, warmupMillis);
+        long start = System.nanoTime();
+        List<LatencyStats> perThread = measure(operation, threads, measureMillis);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        LatencyStats total = new LatencyStats(1024);
+        for (LatencyStats stats : perThread){
+            total.merge(stats);
+        }
+        return new Result(name, threads, total, seconds);
+    }
+
+    private List<LatencyStats> measure(Operation operation, int threads, long millis) throws InterruptedException {
+        List<LatencyStats> stats = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+
+        for (int t = 0; t < threads; t++){
+            LatencyStats threadStats = new LatencyStats(1024);
+            stats.add(threadStats);
+            Random random = new Random(t * 7919L + millis);
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline){
+                        long begin = System.nanoTime();
+                        try {
+                            operation.run(random);
+                            threadStats.record(System.nanoTime() - begin);
+                        } catch (RuntimeException e) {
+                            threadStats.recordError();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "bench-worker-" + t);
+            worker.start();
+        }
+        done.await();
+        return stats;
+    }
+
+    private static void writeJson(String file, String url, int departments, int sellers, List<Result> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8))){
+            out.println("{");
+            out.println("  \"timestamp\": \"" + Instant.now() + "\",");
+            out.println("  \"dbUrl\": \"" + url.replace("\"", "\\\"") + "\",");
+            out.println("  \"departments\": " + departments + ",");
+            out.println("  \"sellers\": " + sellers + ",");
+            out.println("  \"results\": [");
+            for (int i = 0; i < results.size(); i++){
+                out.print("    " + results.get(i).toJson());
+                out.println(i < results.size() - 1 ? "," : "");
+            }
+            out.println("  ]");
+            out.println("}");
+        }
+    }
+
+    private static int[] parseInts(String csv){
+        String[] parts = csv.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++){
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    private static class Result {
+
+        private final String operation;
+        private final int threads;
+        private final LatencyStats stats;
+        private final double seconds;
+
+        private Result(String operation, int threads, LatencyStats stats, double seconds){
+            this.operation = operation;
+            this.threads = threads;
+            this.stats = stats;
+            this.seconds = seconds;
+        }
+
+        private double opsPerSecond(){
+            return stats.getCount() / seconds;
+        }
+
+        private String toJson(){
+            return String.format(Locale.US,
+                    "{\"operation\": \"%s\", \"threads\": %d, \"ops\": %d, \"opsPerSecond\": %.2f, " +
+                            "\"errors\": %d, \"meanMicros\": %.2f, \"p50Micros\": %.2f, \"p99Micros\": %.2f}",
+                    operation, threads, stats.getCount(), opsPerSecond(), stats.getErrorCount(),
+                    stats.meanMicros(), stats.percentileMicros(50), stats.percentileMicros(99));
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-30s threads=%-3d ops/s=%12.1f errors=%-6d mean=%10.1fus p50=%10.1fus p99=%10.1fus",
+                    operation, threads, opsPerSecond(), stats.getErrorCount(), stats.meanMicros(),
+                    stats.percentileMicros(50), stats.percentileMicros(99));
+        }
+    }
+}
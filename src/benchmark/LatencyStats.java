@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.util.Arrays;
+
+public class LatencyStats {
+
+    private long[] samples;
+    private int count = 0;
+    private int errors = 0;
+    private long totalNanos = 0;
+    private boolean sorted = true;
+
+    public LatencyStats(int initialCapacity){
+        samples = new long[Math.max(initialCapacity, 16)];
+    }
+
+    public void record(long nanos){
+        if (count == samples.length){
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = nanos;
+        totalNanos += nanos;
+        sorted = false;
+    }
+
+    public void recordError(){
+        errors++;
+    }
+
+    public void merge(LatencyStats other){
+        for (int i = 0; i < other.count; i++){
+            record(other.samples[i]);
+        }
+        errors += other.errors;
+    }
+
+    public int getCount(){
+        return count;
+    }
+
+    public int getErrorCount(){
+        return errors;
+    }
+
+    public double meanMicros(){
+        return count == 0 ? 0.0 : totalNanos / (double) count / 1000.0;
+    }
+
+    public double percentileMicros(double percentile){
+        if (count == 0){
+            return 0.0;
+        }
+        if (!sorted){
+            Arrays.sort(samples, 0, count);
+            sorted = true;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return samples[Math.max(0, Math.min(index, count - 1))] / 1000.0;
+    }
+}
@@ -0,0 +1,150 @@
+package benchmark;
+
+import db.DB;
+import model.dao.DaoFactory;
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+public class SyntheticDataGenerator {
+
+    private static final String[] FIRST_NAMES = {
+            "Ana", "Bruno", "Carla", "Daniel", "Eduardo", "Fernanda", "Gabriel", "Helena", "Igor", "Julia",
+            "Karen", "Lucas", "Mariana", "Nicolas", "Olivia", "Paulo", "Rafael", "Sofia", "Thiago", "Vitoria",
+            "Alex", "Beatriz", "Caio", "Diana", "Felipe", "Isabela", "Joao", "Larissa", "Mateus", "Patricia",
+            "Ricardo", "Sara", "Tiago", "Vanessa", "William", "Yasmin", "Maria", "Jose", "Pedro", "Luiza"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira", "Alves", "Pereira", "Lima", "Gomes",
+            "Costa", "Ribeiro", "Martins", "Carvalho", "Almeida", "Lopes", "Soares", "Fernandes", "Vieira", "Barbosa",
+            "Rocha", "Dias", "Nascimento", "Andrade", "Moreira", "Nunes", "Marques", "Machado", "Mendes", "Freitas",
+            "Smith", "Johnson", "Brown", "Garcia", "Miller", "Davis", "Wilson", "Moore", "Taylor", "Clark"
+    };
+
+    private static final String[] DEPARTMENT_WORDS = {
+            "Computers", "Electronics", "Fashion", "Books", "Toys", "Garden", "Sports", "Music",
+            "Furniture", "Grocery", "Beauty", "Automotive", "Pets", "Office", "Health", "Jewelry"
+    };
+
+    private static final String[] EMAIL_DOMAINS = {
+            "gmail.com", "outlook.com", "yahoo.com", "hotmail.com", "company.com", "mail.com"
+    };
+
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private final Random random;
+    private List<Department> departments = new ArrayList<>();
+    private double[] departmentCdf = new double[0];
+    private long sequence = 0;
+
+    public SyntheticDataGenerator(long seed){
+        this.random = new Random(seed);
+    }
+
+    public List<Department> newDepartments(int count){
+        List<Department> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++){
+            String name = DEPARTMENT_WORDS[i % DEPARTMENT_WORDS.length];
+            if (i >= DEPARTMENT_WORDS.length){
+                name = name + " " + (i / DEPARTMENT_WORDS.length + 1);
+            }
+            list.add(new Department(null, name));
+        }
+        return list;
+    }
+
+    public void useDepartments(List<Department> departments, double skew){
+        this.departments = departments;
+        this.departmentCdf = new double[departments.size()];
+        double total = 0;
+        for (int i = 0; i < departments.size(); i++){
+            total += 1.0 / Math.pow(i + 1, skew);
+            departmentCdf[i] = total;
+        }
+        for (int i = 0; i < departmentCdf.length; i++){
+            departmentCdf[i] /= total;
+        }
+    }
+
+    public SyntheticDataGenerator fork(long seed){
+        SyntheticDataGenerator copy = new SyntheticDataGenerator(seed);
+        copy.departments = departments;
+        copy.departmentCdf = departmentCdf;
+        copy.sequence = seed << 32;
+        return copy;
+    }
+
+    public Department nextDepartment(){
+        if (departments.isEmpty()){
+            throw new IllegalStateException("No departments to choose from");
+        }
+        int index = Arrays.binarySearch(departmentCdf, random.nextDouble());
+        if (index < 0){
+            index = -index - 1;
+        }
+        return departments.get(Math.min(index, departments.size() - 1));
+    }
+
+    public Seller nextSeller(){
+        String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        String name = first + " " + last;
+        String email = (first + "." + last + (++sequence)).toLowerCase()
+                + "@" + EMAIL_DOMAINS[random.nextInt(EMAIL_DOMAINS.length)];
+
+        int ageDays = 18 * 365 + random.nextInt(47 * 365);
+        Date birthDate = new Date((System.currentTimeMillis() / DAY_MILLIS - ageDays) * DAY_MILLIS);
+
+        double salary = Math.exp(Math.log(3000.0) + 0.4 * random.nextGaussian());
+        salary = Math.round(salary * 100.0) / 100.0;
+
+        return new Seller(null, name, email, birthDate, salary, nextDepartment());
+    }
+
+    public Random getRandom(){
+        return random;
+    }
+
+    public void populate(int departmentCount, int sellerCount, double skew){
+        DepartmentDao departmentDao = DaoFactory.createDepartmentDao();
+        SellerDao sellerDao = DaoFactory.createSellerDao();
+
+        List<Department> deps = newDepartments(departmentCount);
+        departmentDao.insertAll(deps);
+        useDepartments(deps, skew);
+
+        int chunk = 50_000;
+        long start = System.currentTimeMillis();
+        for (int from = 0; from < sellerCount; from += chunk){
+            int to = Math.min(from + chunk, sellerCount);
+            List<Seller> sellers = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++){
+                sellers.add(nextSeller());
+            }
+            sellerDao.insertAll(sellers);
+            System.out.printf("Inserted %d/%d sellers (%d ms)%n", to, sellerCount, System.currentTimeMillis() - start);
+        }
+    }
+
+    public static void main(String[] args) {
+        int departments = Integer.getInteger("gen.departments", 200);
+        int sellers = Integer.getInteger("gen.sellers", 1_000_000);
+        double skew = Double.parseDouble(System.getProperty("gen.skew", "1.1"));
+        long seed = Long.getLong("gen.seed", 42L);
+        String url = System.getProperty("gen.dbUrl");
+
+        if (url != null){
+            BenchmarkDatabase.start(url, 2);
+        }
+        new SyntheticDataGenerator(seed).populate(departments, sellers, skew);
+        DB.closeConnection();
+    }
+}
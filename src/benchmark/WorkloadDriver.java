@@ -0,0 +1,176 @@
+package benchmark;
+
+import db.DB;
+import model.dao.SortSpec;
+import model.entities.Department;
+import model.entities.Seller;
+import model.services.DepartmentService;
+import model.services.SellerService;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+public class WorkloadDriver {
+
+    interface Operation {
+        void run(SyntheticDataGenerator generator);
+    }
+
+    private final SellerService sellerService = new SellerService();
+    private final DepartmentService departmentService = new DepartmentService();
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private final int minSellerId;
+    private final int maxSellerId;
+
+    public WorkloadDriver(){
+        int count = sellerService.count();
+        if (count == 0){
+            throw new IllegalStateException("The seller table is empty, seed it first");
+        }
+        minSellerId = sellerService.findKeyAt(null, 0, true);
+        maxSellerId = sellerService.findKeyAt(null, 0, false);
+
+        operations.put("findById", g -> sellerService.findById(randomSellerId(g)));
+        operations.put("findByDepartment", g -> sellerService.findByDepartment(g.nextDepartment()));
+        operations.put("findPage", g -> sellerService.findPage(randomSellerId(g), 200));
+        operations.put("search", g -> sellerService.search(g.nextSeller().getName().substring(0, 3), SortSpec.ascending("name"), 50));
+        operations.put("insert", g -> sellerService.saveOrUpdate(g.nextSeller()));
+        operations.put("update", g -> {
+            Seller seller = g.nextSeller();
+            seller.setId(randomSellerId(g));
+            sellerService.saveOrUpdate(seller);
+        });
+        operations.put("departmentFindAll", g -> departmentService.findAll());
+    }
+
+    private int randomSellerId(SyntheticDataGenerator g){
+        return minSellerId + g.getRandom().nextInt(maxSellerId - minSellerId + 1);
+    }
+
+    public Map<String, LatencyStats> run(Map<String, Integer> mix, int workers, long durationMillis,
+                                         SyntheticDataGenerator generator) throws InterruptedException {
+        List<String> names = new ArrayList<>(mix.keySet());
+        int[] cumulative = new int[names.size()];
+        int total = 0;
+        for (int i = 0; i < names.size(); i++){
+            if (!operations.containsKey(names.get(i))){
+                throw new IllegalArgumentException("Unknown operation " + names.get(i) + ", expected one of " + operations.keySet());
+            }
+            total += mix.get(names.get(i));
+            cumulative[i] = total;
+        }
+        int weightSum = total;
+
+        List<Map<String, LatencyStats>> perWorker = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(workers);
+        long deadline = System.nanoTime() + durationMillis * 1_000_000L;
+
+        for (int w = 0; w < workers; w++){
+            Map<String, LatencyStats> stats = new LinkedHashMap<>();
+            for (String name : names){
+                stats.put(name, new LatencyStats(4096));
+            }
+            perWorker.add(stats);
+            SyntheticDataGenerator workerGenerator = generator.fork(w + 1);
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline){
+                        int pick = workerGenerator.getRandom().nextInt(weightSum);
+                        int index = 0;
+                        while (cumulative[index] <= pick){
+                            index++;
+                        }
+                        String name = names.get(index);
+                        long begin = System.nanoTime();
+                        try {
+                            operations.get(name).run(workerGenerator);
+                            stats.get(name).record(System.nanoTime() - begin);
+                        } catch (RuntimeException e) {
+                            stats.get(name).recordError();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-worker-" + w);
+            worker.start();
+        }
+        done.await();
+
+        Map<String, LatencyStats> merged = new LinkedHashMap<>();
+        for (String name : names){
+            LatencyStats stats = new LatencyStats(4096);
+            for (Map<String, LatencyStats> worker : perWorker){
+                stats.merge(worker.get(name));
+            }
+            merged.put(name, stats);
+        }
+        return merged;
+    }
+
+    public static void report(Map<String, LatencyStats> results, double seconds){
+        System.out.printf(Locale.US, "%-20s %10s %8s %12s %10s %10s %10s %10s%n",
+                "operation", "ops", "errors", "ops/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms");
+        LatencyStats all = new LatencyStats(4096);
+        for (Map.Entry<String, LatencyStats> entry : results.entrySet()){
+            printRow(entry.getKey(), entry.getValue(), seconds);
+            all.merge(entry.getValue());
+        }
+        printRow("total", all, seconds);
+    }
+
+    private static void printRow(String name, LatencyStats stats, double seconds){
+        System.out.printf(Locale.US, "%-20s %10d %8d %12.1f %10.3f %10.3f %10.3f %10.3f%n",
+                name, stats.getCount(), stats.getErrorCount(), stats.getCount() / seconds,
+                stats.percentileMicros(50) / 1000.0, stats.percentileMicros(95) / 1000.0,
+                stats.percentileMicros(99) / 1000.0, stats.percentileMicros(99.9) / 1000.0);
+    }
+
+    private static Map<String, Integer> parseMix(String spec){
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")){
+            String[] kv = part.trim().split(":");
+            mix.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("load.dbUrl");
+        int workers = Integer.getInteger("load.workers", 8);
+        long durationMillis = Long.getLong("load.durationSeconds", 30L) * 1000L;
+        int seedSellers = Integer.getInteger("load.seedSellers", 0);
+        int seedDepartments = Integer.getInteger("load.seedDepartments", 200);
+        double skew = Double.parseDouble(System.getProperty("load.skew", "1.1"));
+        Map<String, Integer> mix = parseMix(System.getProperty("load.mix",
+                "findById:50,findByDepartment:15,findPage:10,update:15,insert:5,departmentFindAll:5"));
+
+        if (url != null){
+            BenchmarkDatabase.start(url, workers + 1);
+        }
+
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(Long.getLong("load.seed", 42L));
+        if (seedSellers > 0){
+            generator.populate(seedDepartments, seedSellers, skew);
+        }else {
+            List<Department> departments = new DepartmentService().findAll();
+            generator.useDepartments(departments, skew);
+        }
+
+        WorkloadDriver driver = new WorkloadDriver();
+        System.out.printf("Running %d workers for %d s with mix %s%n", workers, durationMillis / 1000, mix);
+        long start = System.nanoTime();
+        Map<String, LatencyStats> results = driver.run(mix, workers, durationMillis, generator);
+        report(results, (System.nanoTime() - start) / 1e9);
+        System.out.println(DB.getConnectionPool());
+        if (DB.getRoutingDataSource().hasReplicas()){
+            System.out.println(DB.getRoutingDataSource());
+            DB.getRoutingDataSource().getReplicas().forEach(System.out::println);
+        }
+        DB.closeConnection();
+    }
+}
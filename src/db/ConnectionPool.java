@@ -0,0 +1,441 @@
+package db;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+public class ConnectionPool implements DataSource {
+
+    private final String url;
+    private final Properties props;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakDetectionMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final SlowQueryLog slowQueryLog;
+
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> active = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown = false;
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder destroyedCount = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    public ConnectionPool(String url, Properties props){
+        this.url = url;
+        this.props = props;
+        this.minSize = intProperty(props, "pool.minSize", 1);
+        this.maxSize = Math.max(intProperty(props, "pool.maxSize", 10), Math.max(minSize, 1));
+        this.borrowTimeoutMillis = longProperty(props, "pool.borrowTimeoutMillis", 30000);
+        this.idleTimeoutMillis = longProperty(props, "pool.idleTimeoutMillis", 600000);
+        this.leakDetectionMillis = longProperty(props, "pool.leakDetectionMillis", 0);
+        this.validationTimeoutSeconds = intProperty(props, "pool.validationTimeoutSeconds", 2);
+        this.statementCacheSize = intProperty(props, "pool.statementCacheSize", 50);
+        this.slowQueryLog = SlowQueryLog.fromProperties(props);
+        this.permits = new Semaphore(maxSize, true);
+
+        long housekeepingMillis = longProperty(props, "pool.housekeepingMillis", 30000);
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, housekeepingMillis, housekeepingMillis, TimeUnit.MILLISECONDS);
+        fillToMinimum();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (shutdown){
+            throw new SQLException("Connection pool is shut down");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)){
+                throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis
+                        + "ms waiting for a connection (active=" + getActiveCount() + ", max=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection");
+        }
+
+        try {
+            PooledConnection pc;
+            while ((pc = idle.pollFirst()) != null){
+                if (isUsable(pc)){
+                    break;
+                }
+                validationFailures.increment();
+                destroy(pc);
+            }
+            if (pc == null){
+                pc = create();
+            }
+            if (leakDetectionMillis > 0){
+                pc.borrowedAt = System.currentTimeMillis();
+                pc.borrowSite = Thread.currentThread().getStackTrace();
+                pc.leakReported = false;
+            }
+            active.add(pc);
+            recordWait(System.nanoTime() - start);
+            return pc.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pool connections use the configured credentials");
+    }
+
+    public void shutdown(){
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null){
+            destroy(pc);
+        }
+        for (PooledConnection a : active){
+            active.remove(a);
+            destroy(a);
+        }
+        if (slowQueryLog != null){
+            slowQueryLog.close();
+        }
+    }
+
+    public int getActiveCount(){
+        return active.size();
+    }
+
+    public int getIdleCount(){
+        return idle.size();
+    }
+
+    public int getMinSize(){
+        return minSize;
+    }
+
+    public int getMaxSize(){
+        return maxSize;
+    }
+
+    public long getBorrowCount(){
+        return borrowCount.sum();
+    }
+
+    public double getAverageBorrowWaitMillis(){
+        long count = borrowCount.sum();
+        return count == 0 ? 0.0 : borrowWaitNanos.sum() / (double) count / 1_000_000.0;
+    }
+
+    public double getMaxBorrowWaitMillis(){
+        return maxBorrowWaitNanos.get() / 1_000_000.0;
+    }
+
+    public long getCreatedCount(){
+        return createdCount.sum();
+    }
+
+    public long getDestroyedCount(){
+        return destroyedCount.sum();
+    }
+
+    public long getValidationFailureCount(){
+        return validationFailures.sum();
+    }
+
+    public long getLeakCount(){
+        return leakCount.sum();
+    }
+
+    public long getStatementCacheHits(){
+        return statementCacheHits.sum();
+    }
+
+    public long getStatementCacheMisses(){
+        return statementCacheMisses.sum();
+    }
+
+    public double getStatementCacheHitRate(){
+        long hits = statementCacheHits.sum();
+        long total = hits + statementCacheMisses.sum();
+        return total == 0 ? 0.0 : hits / (double) total;
+    }
+
+    public SlowQueryLog getSlowQueryLog(){
+        return slowQueryLog;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{" +
+                "active=" + getActiveCount() +
+                ", idle=" + getIdleCount() +
+                ", max=" + maxSize +
+                ", borrows=" + getBorrowCount() +
+                ", avgWaitMs=" + String.format("%.3f", getAverageBorrowWaitMillis()) +
+                ", maxWaitMs=" + String.format("%.3f", getMaxBorrowWaitMillis()) +
+                ", leaks=" + getLeakCount() +
+                ", stmtHitRate=" + String.format("%.3f", getStatementCacheHitRate()) +
+                '}';
+    }
+
+    private void recordWait(long nanos){
+        borrowCount.increment();
+        borrowWaitNanos.add(nanos);
+        maxBorrowWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private boolean isUsable(PooledConnection pc){
+        try {
+            return !pc.raw.isClosed() && pc.raw.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection raw = DriverManager.getConnection(url, props);
+        createdCount.increment();
+        return new PooledConnection(raw, raw.getTransactionIsolation());
+    }
+
+    private void destroy(PooledConnection pc){
+        destroyedCount.increment();
+        if (pc.statements != null){
+            pc.statements.closeAll();
+        }
+        try {
+            pc.raw.close();
+        } catch (SQLException e) {
+            // the connection is being discarded anyway
+        }
+    }
+
+    private void release(PooledConnection pc){
+        if (!active.remove(pc)){
+            return;
+        }
+        pc.lastUsed = System.currentTimeMillis();
+        pc.borrowSite = null;
+        try {
+            if (shutdown || pc.broken || pc.raw.isClosed()){
+                destroy(pc);
+            } else {
+                if (!pc.raw.getAutoCommit()){
+                    pc.raw.rollback();
+                    pc.raw.setAutoCommit(true);
+                }
+                if (pc.stateChanged){
+                    pc.raw.setReadOnly(false);
+                    pc.raw.setTransactionIsolation(pc.defaultIsolation);
+                    pc.stateChanged = false;
+                }
+                idle.offerFirst(pc);
+            }
+        } catch (SQLException e) {
+            destroy(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void housekeep(){
+        long now = System.currentTimeMillis();
+
+        if (idleTimeoutMillis > 0){
+            for (PooledConnection pc : idle){
+                if (now - pc.lastUsed > idleTimeoutMillis && idle.size() + active.size() > minSize && idle.remove(pc)){
+                    destroy(pc);
+                }
+            }
+        }
+
+        if (leakDetectionMillis > 0){
+            for (PooledConnection pc : active){
+                StackTraceElement[] site = pc.borrowSite;
+                if (!pc.leakReported && site != null && now - pc.borrowedAt > leakDetectionMillis){
+                    pc.leakReported = true;
+                    leakCount.increment();
+                    StringBuilder sb = new StringBuilder("Possible connection leak: borrowed ")
+                            .append(now - pc.borrowedAt).append("ms ago and not returned to the pool");
+                    for (int i = 2; i < site.length; i++){
+                        sb.append(System.lineSeparator()).append("\tat ").append(site[i]);
+                    }
+                    System.err.println(sb);
+                }
+            }
+        }
+
+        fillToMinimum();
+    }
+
+    private void fillToMinimum(){
+        try {
+            while (!shutdown && idle.size() + active.size() < minSize){
+                idle.offerLast(create());
+            }
+        } catch (SQLException e) {
+            System.err.println("Could not fill connection pool: " + e.getMessage());
+        }
+    }
+
+    private static int intProperty(Properties props, String key, int defaultValue){
+        String value = props.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long longProperty(Properties props, String key, long defaultValue){
+        String value = props.getProperty(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)){
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    private final class PooledConnection {
+
+        private final Connection raw;
+        private final StatementCache statements;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private final int defaultIsolation;
+        private volatile StackTraceElement[] borrowSite;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+        private boolean stateChanged;
+
+        private PooledConnection(Connection raw, int defaultIsolation){
+            this.raw = raw;
+            this.defaultIsolation = defaultIsolation;
+            this.statements = statementCacheSize > 0
+                    ? new StatementCache(raw, statementCacheSize, statementCacheHits, statementCacheMisses)
+                    : null;
+        }
+
+        private Connection lease(){
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeaseHandler(this));
+        }
+    }
+
+    private final class LeaseHandler implements InvocationHandler {
+
+        private final PooledConnection pc;
+        private boolean returned = false;
+
+        private LeaseHandler(PooledConnection pc){
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()){
+                case "close":
+                    if (!returned){
+                        returned = true;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pc.raw.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pc.raw;
+            }
+            if (returned){
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (method.getName().equals("setReadOnly") || method.getName().equals("setTransactionIsolation")){
+                pc.stateChanged = true;
+            }
+            try {
+                Object result = pc.statements != null && StatementCache.isCacheable(method)
+                        ? pc.statements.prepare(method, args)
+                        : method.invoke(pc.raw, args);
+                if (slowQueryLog != null && result instanceof PreparedStatement && method.getName().equals("prepareStatement")){
+                    return slowQueryLog.wrap((PreparedStatement) result, (String) args[0]);
+                }
+                return result;
+            } catch (InvocationTargetException | SQLException e) {
+                Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+                if (cause instanceof SQLException){
+                    String state = ((SQLException) cause).getSQLState();
+                    if (state != null && state.startsWith("08")){
+                        pc.broken = true;
+                    }
+                }
+                throw cause;
+            }
+        }
+    }
+}
@@ -1,32 +1,132 @@
 package db;
 
+import javax.sql.DataSource;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.*;
 import java.util.Properties;
+import java.util.function.Supplier;
 
 public class DB {
 
-    private static Connection conn = null;
+    private static Properties properties = null;
+    private static ConnectionPool pool = null;
+    private static TransactionalDataSource dataSource = null;
+    private static RoutingDataSource routingDataSource = null;
 
-    public static Connection getConnection(){
-        if (conn == null){
-            Properties props = loadProperties();
+    public static synchronized ConnectionPool getConnectionPool(){
+        if (pool == null){
+            Properties props = getProperties();
             String url = props.getProperty("dbUrl");
+            pool = new ConnectionPool(url, props);
+            dataSource = new TransactionalDataSource(pool);
+            routingDataSource = new RoutingDataSource(dataSource, RoutingDataSource.replicasFromProperties(props),
+                    getIntProperty("replica.stickyMillis", 2000));
+        }
+
+        return pool;
+    }
+
+    public static synchronized Properties getProperties(){
+        if (properties == null){
+            properties = loadProperties();
+        }
+        return properties;
+    }
+
+    public static synchronized void setProperties(Properties props){
+        closeConnection();
+        properties = props;
+    }
+
+    public static int getIntProperty(String key, int defaultValue){
+        String value = getProperties().getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    public static boolean getBooleanProperty(String key, boolean defaultValue){
+        String value = getProperties().getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    public static synchronized DataSource getDataSource(){
+        getConnectionPool();
+        return routingDataSource;
+    }
+
+    public static synchronized RoutingDataSource getRoutingDataSource(){
+        getConnectionPool();
+        return routingDataSource;
+    }
+
+    public static <T> T inTransaction(Supplier<T> work){
+        return transactionalDataSource().inTransaction(work);
+    }
+
+    public static <T> T inTransaction(int isolation, Supplier<T> work){
+        return transactionalDataSource().inTransaction(isolation, work);
+    }
+
+    public static void inTransaction(Runnable work){
+        inTransaction(TransactionalDataSource.DEFAULT_ISOLATION, work);
+    }
+
+    public static void inTransaction(int isolation, Runnable work){
+        transactionalDataSource().inTransaction(isolation, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static <T> T inSavepoint(Supplier<T> work){
+        return transactionalDataSource().inSavepoint(work);
+    }
+
+    public static void afterCommit(Runnable action){
+        transactionalDataSource().afterCommit(action);
+    }
+
+    public static boolean isInTransaction(){
+        return transactionalDataSource().isInTransaction();
+    }
+
+    private static synchronized TransactionalDataSource transactionalDataSource(){
+        getConnectionPool();
+        return dataSource;
+    }
+
+    public static Connection getConnection(){
+        try {
+            return getDataSource().getConnection();
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    public static synchronized void closeConnection(){
+        if (pool != null){
+            routingDataSource.shutdown();
+            pool.shutdown();
+            pool = null;
+            dataSource = null;
+            routingDataSource = null;
+        }
+    }
+
+    public static void closeConnection(Connection conn){
+        if (conn != null){
             try {
-                conn = DriverManager.getConnection(url, props);
-            } catch (SQLException e) {
+                conn.close();
+            }catch (SQLException e){
                 throw new DbException(e.getMessage());
             }
         }
-
-        return conn;
     }
 
-    public static void closeConnection(){
+    public static void rollback(Connection conn){
         if (conn != null){
             try {
-                conn.close();
+                conn.rollback();
             }catch (SQLException e){
                 throw new DbException(e.getMessage());
             }
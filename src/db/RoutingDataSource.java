@@ -0,0 +1,189 @@
+package db;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+public class RoutingDataSource implements DataSource {
+
+    private final TransactionalDataSource primary;
+    private final List<ConnectionPool> replicas;
+    private final long stickyNanos;
+    private final ThreadLocal<Boolean> readIntent = new ThreadLocal<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile long lastWriteNanos;
+    private volatile boolean written = false;
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder stickyReads = new LongAdder();
+    private final LongAdder replicaFailures = new LongAdder();
+
+    public RoutingDataSource(TransactionalDataSource primary, List<ConnectionPool> replicas, long stickyMillis){
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.stickyNanos = TimeUnit.MILLISECONDS.toNanos(stickyMillis);
+    }
+
+    public static List<ConnectionPool> replicasFromProperties(Properties props){
+        List<ConnectionPool> replicas = new ArrayList<>();
+        for (int i = 1; props.getProperty("replica." + i + ".dbUrl") != null; i++){
+            String prefix = "replica." + i + ".";
+            Properties replicaProps = new Properties();
+            replicaProps.putAll(props);
+            for (String key : props.stringPropertyNames()){
+                if (key.startsWith(prefix)){
+                    replicaProps.setProperty(key.substring(prefix.length()), props.getProperty(key));
+                }
+            }
+            if (props.getProperty(prefix + "slowQuery.file") == null){
+                Path log = Paths.get(props.getProperty("slowQuery.file", "slow-query.log"));
+                replicaProps.setProperty("slowQuery.file",
+                        log.resolveSibling("replica" + i + "-" + log.getFileName()).toString());
+            }
+            replicas.add(new ConnectionPool(replicaProps.getProperty("dbUrl"), replicaProps));
+        }
+        return replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!Boolean.TRUE.equals(readIntent.get()) || primary.isInTransaction()){
+            return primary.getConnection();
+        }
+        if (replicas.isEmpty()){
+            primaryReads.increment();
+            return primary.getConnection();
+        }
+        if (written && System.nanoTime() - lastWriteNanos < stickyNanos){
+            stickyReads.increment();
+            return primary.getConnection();
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++){
+            try {
+                Connection conn = replicas.get((start + i) % replicas.size()).getConnection();
+                replicaReads.increment();
+                return conn;
+            } catch (SQLException e) {
+                replicaFailures.increment();
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    public boolean setReadIntent(boolean read){
+        boolean previous = Boolean.TRUE.equals(readIntent.get());
+        if (read){
+            readIntent.set(Boolean.TRUE);
+        }else {
+            readIntent.remove();
+        }
+        return previous;
+    }
+
+    public void markWrite(){
+        lastWriteNanos = System.nanoTime();
+        written = true;
+    }
+
+    public boolean hasReplicas(){
+        return !replicas.isEmpty();
+    }
+
+    public TransactionalDataSource getPrimary(){
+        return primary;
+    }
+
+    public List<ConnectionPool> getReplicas(){
+        return replicas;
+    }
+
+    public long getReplicaReads(){
+        return replicaReads.sum();
+    }
+
+    public long getPrimaryReads(){
+        return primaryReads.sum();
+    }
+
+    public long getStickyReads(){
+        return stickyReads.sum();
+    }
+
+    public long getReplicaFailures(){
+        return replicaFailures.sum();
+    }
+
+    public void shutdown(){
+        for (ConnectionPool replica : replicas){
+            replica.shutdown();
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)){
+            return iface.cast(this);
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    @Override
+    public String toString() {
+        return "RoutingDataSource{" +
+                "replicas=" + replicas.size() +
+                ", replicaReads=" + getReplicaReads() +
+                ", primaryReads=" + getPrimaryReads() +
+                ", stickyReads=" + getStickyReads() +
+                ", replicaFailures=" + getReplicaFailures() +
+                '}';
+    }
+}
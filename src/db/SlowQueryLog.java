@@ -0,0 +1,305 @@
+package db;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SlowQueryLog {
+
+    private static final String STOP = "";
+
+    private final long thresholdNanos;
+    private final Path file;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final BlockingQueue<String> queue;
+    private final Thread writer;
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public SlowQueryLog(long thresholdMillis, Path file, long maxFileBytes, int maxFiles, int queueCapacity){
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = Math.max(maxFiles, 1);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::writeLoop, "slow-query-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public static SlowQueryLog fromProperties(Properties props){
+        long threshold = Long.parseLong(props.getProperty("slowQuery.thresholdMillis", "500").trim());
+        if (threshold < 0){
+            return null;
+        }
+        return new SlowQueryLog(threshold,
+                Paths.get(props.getProperty("slowQuery.file", "slow-query.log")),
+                Long.parseLong(props.getProperty("slowQuery.maxFileBytes", "10485760").trim()),
+                Integer.parseInt(props.getProperty("slowQuery.maxFiles", "5").trim()),
+                Integer.parseInt(props.getProperty("slowQuery.queueSize", "1024").trim()));
+    }
+
+    public PreparedStatement wrap(PreparedStatement ps, String sql){
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new TimedStatementHandler(ps, sql));
+    }
+
+    public long getLoggedCount(){
+        return logged.sum();
+    }
+
+    public long getDroppedCount(){
+        return dropped.sum();
+    }
+
+    public void close(){
+        try {
+            if (writer.isAlive() && !queue.offer(STOP, 1, TimeUnit.SECONDS)){
+                writer.interrupt();
+            }
+            writer.join(2000);
+        } catch (InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void report(String sql, Object[] params, int batches, long rows, long executeNanos, long fetchNanos){
+        long elapsedNanos = executeNanos + Math.max(fetchNanos, 0);
+        if (elapsedNanos < thresholdNanos){
+            return;
+        }
+        String entry = Instant.now() +
+                " elapsedMs=" + String.format("%.3f", elapsedNanos / 1_000_000.0) +
+                (fetchNanos >= 0
+                        ? " executeMs=" + String.format("%.3f", executeNanos / 1_000_000.0)
+                        + " fetchMs=" + String.format("%.3f", fetchNanos / 1_000_000.0)
+                        : "") +
+                " rows=" + rows +
+                (batches > 0 ? " batches=" + batches : "") +
+                " caller=" + caller() +
+                " sql=[" + sql.replaceAll("\\s+", " ").trim() + "]" +
+                " params=" + Arrays.toString(params) +
+                System.lineSeparator();
+        if (queue.offer(entry)){
+            logged.increment();
+        }else {
+            dropped.increment();
+        }
+    }
+
+    private static String caller(){
+        Optional<String> frame = StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith("model.dao.impl."))
+                .map(f -> f.getClassName() + "." + f.getMethodName())
+                .reduce((inner, outer) -> outer));
+        return frame.orElse("unknown");
+    }
+
+    private void writeLoop(){
+        Writer out = null;
+        try {
+            while (true){
+                String entry = queue.take();
+                if (entry == STOP){
+                    break;
+                }
+                if (out == null){
+                    out = open();
+                }
+                out.write(entry);
+                if (queue.isEmpty()){
+                    out.flush();
+                    if (Files.size(file) > maxFileBytes){
+                        out.close();
+                        out = null;
+                        roll();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Slow query log disabled: " + e.getMessage());
+        } finally {
+            if (out != null){
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // nothing left to flush to
+                }
+            }
+        }
+    }
+
+    private Writer open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null){
+            Files.createDirectories(parent);
+        }
+        return Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void roll() throws IOException {
+        for (int i = maxFiles - 1; i >= 1; i--){
+            Path from = Paths.get(file + "." + i);
+            if (Files.exists(from)){
+                Files.move(from, Paths.get(file + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, Paths.get(file + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(Paths.get(file + "." + (maxFiles + 1)));
+    }
+
+    private final class TimedStatementHandler implements InvocationHandler {
+
+        private final PreparedStatement ps;
+        private final String sql;
+        private Object[] params = new Object[8];
+        private int paramCount = 0;
+        private int batches = 0;
+
+        private TimedStatementHandler(PreparedStatement ps, String sql){
+            this.ps = ps;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer){
+                bind((Integer) args[0], args[1]);
+            }else if (name.equals("clearParameters")){
+                Arrays.fill(params, null);
+                paramCount = 0;
+            }else if (name.equals("addBatch")){
+                batches++;
+            }else if (name.equals("equals")){
+                return proxy == args[0];
+            }else if (name.equals("hashCode")){
+                return System.identityHashCode(proxy);
+            }
+
+            boolean execute = name.startsWith("execute");
+            long start = execute ? System.nanoTime() : 0;
+            Object result;
+            try {
+                result = method.invoke(ps, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (!execute){
+                return result;
+            }
+
+            Object[] snapshot = Arrays.copyOf(params, paramCount);
+            int batchCount = batches;
+            if (name.equals("executeBatch") || name.equals("executeLargeBatch")){
+                batches = 0;
+            }
+            if (result instanceof ResultSet){
+                return Proxy.newProxyInstance(
+                        ResultSet.class.getClassLoader(),
+                        new Class<?>[]{ResultSet.class},
+                        new TimedResultSetHandler((ResultSet) result, sql, snapshot, System.nanoTime() - start));
+            }
+            report(sql, snapshot, batchCount, rowCount(result), System.nanoTime() - start, -1);
+            return result;
+        }
+
+        private void bind(int index, Object value){
+            if (index > params.length){
+                params = Arrays.copyOf(params, Math.max(index, params.length * 2));
+            }
+            params[index - 1] = value;
+            paramCount = Math.max(paramCount, index);
+        }
+
+        private long rowCount(Object result){
+            if (result instanceof Integer || result instanceof Long){
+                return ((Number) result).longValue();
+            }
+            if (result instanceof int[]){
+                long sum = 0;
+                for (int n : (int[]) result){
+                    sum += Math.max(n, 0);
+                }
+                return sum;
+            }
+            return 0;
+        }
+    }
+
+    private final class TimedResultSetHandler implements InvocationHandler {
+
+        private final ResultSet rs;
+        private final String sql;
+        private final Object[] params;
+        private final long executeNanos;
+        private long fetchNanos = 0;
+        private long rows = 0;
+        private boolean reported = false;
+
+        private TimedResultSetHandler(ResultSet rs, String sql, Object[] params, long executeNanos){
+            this.rs = rs;
+            this.sql = sql;
+            this.params = params;
+            this.executeNanos = executeNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()){
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "close":
+                    if (!reported){
+                        reported = true;
+                        report(sql, params, 0, rows, executeNanos, fetchNanos);
+                    }
+                    break;
+            }
+            boolean next = method.getName().equals("next");
+            long start = next ? System.nanoTime() : 0;
+            Object result;
+            try {
+                result = method.invoke(rs, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (next){
+                    fetchNanos += System.nanoTime() - start;
+                }
+            }
+            if (next && Boolean.TRUE.equals(result)){
+                rows++;
+            }
+            return result;
+        }
+    }
+}
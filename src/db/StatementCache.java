@@ -0,0 +1,197 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+class StatementCache {
+
+    private final Connection raw;
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final Map<String, CachedStatement> statements;
+
+    StatementCache(Connection raw, int maxSize, LongAdder hits, LongAdder misses){
+        this.raw = raw;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize){
+                    CachedStatement cs = eldest.getValue();
+                    cs.evicted = true;
+                    if (!cs.inUse){
+                        closeQuietly(cs.ps);
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    static boolean isCacheable(Method method){
+        if (!method.getName().equals("prepareStatement")){
+            return false;
+        }
+        Class<?>[] types = method.getParameterTypes();
+        return types.length == 1
+                || (types.length == 2 && types[1] == int.class)
+                || (types.length == 3 && types[1] == int.class && types[2] == int.class);
+    }
+
+    PreparedStatement prepare(Method method, Object[] args) throws Throwable {
+        StringBuilder key = new StringBuilder((String) args[0]);
+        for (int i = 1; i < args.length; i++){
+            key.append('|').append(args[i]);
+        }
+        String cacheKey = key.toString();
+
+        synchronized (statements){
+            CachedStatement cs = statements.get(cacheKey);
+            if (cs != null && !cs.inUse){
+                cs.inUse = true;
+                hits.increment();
+                return cs.checkout();
+            }
+        }
+
+        misses.increment();
+        PreparedStatement ps;
+        try {
+            ps = (PreparedStatement) method.invoke(raw, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+
+        synchronized (statements){
+            if (statements.containsKey(cacheKey)){
+                return ps;
+            }
+            CachedStatement cs = new CachedStatement(ps);
+            cs.inUse = true;
+            statements.put(cacheKey, cs);
+            return cs.checkout();
+        }
+    }
+
+    void closeAll(){
+        List<CachedStatement> all;
+        synchronized (statements){
+            all = new ArrayList<>(statements.values());
+            statements.clear();
+        }
+        for (CachedStatement cs : all){
+            closeQuietly(cs.ps);
+        }
+    }
+
+    int size(){
+        synchronized (statements){
+            return statements.size();
+        }
+    }
+
+    private void checkin(CachedStatement cs){
+        boolean reusable;
+        try {
+            cs.ps.clearParameters();
+            cs.ps.clearBatch();
+            if (cs.ps.getFetchSize() != cs.defaultFetchSize){
+                cs.ps.setFetchSize(cs.defaultFetchSize);
+            }
+            reusable = true;
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        synchronized (statements){
+            cs.inUse = false;
+            if (!reusable && !cs.evicted){
+                statements.values().remove(cs);
+                cs.evicted = true;
+            }
+            if (cs.evicted){
+                closeQuietly(cs.ps);
+            }
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement ps){
+        try {
+            ps.close();
+        } catch (SQLException e) {
+            // the statement is being discarded anyway
+        }
+    }
+
+    private final class CachedStatement {
+
+        private final PreparedStatement ps;
+        private final int defaultFetchSize;
+        private boolean inUse;
+        private boolean evicted;
+
+        private CachedStatement(PreparedStatement ps) throws SQLException {
+            this.ps = ps;
+            this.defaultFetchSize = ps.getFetchSize();
+        }
+
+        private PreparedStatement checkout(){
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new CheckoutHandler(this));
+        }
+    }
+
+    private final class CheckoutHandler implements InvocationHandler {
+
+        private final CachedStatement cs;
+        private boolean closed = false;
+
+        private CheckoutHandler(CachedStatement cs){
+            this.cs = cs;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()){
+                case "close":
+                    if (!closed){
+                        closed = true;
+                        checkin(cs);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cs.ps.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached" + cs.ps;
+            }
+            if (closed){
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                return method.invoke(cs.ps, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
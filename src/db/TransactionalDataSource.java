@@ -0,0 +1,305 @@
+package db;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+public class TransactionalDataSource implements DataSource {
+
+    public static final int DEFAULT_ISOLATION = -1;
+
+    private final DataSource target;
+    private final ThreadLocal<Transaction> bound = new ThreadLocal<>();
+
+    public TransactionalDataSource(DataSource target){
+        this.target = target;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Transaction tx = bound.get();
+        if (tx == null){
+            return target.getConnection();
+        }
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new EnlistedHandler(tx.conn));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return target.getConnection(username, password);
+    }
+
+    public boolean isInTransaction(){
+        return bound.get() != null;
+    }
+
+    public static TransactionalDataSource of(DataSource dataSource){
+        try {
+            return dataSource.isWrapperFor(TransactionalDataSource.class)
+                    ? dataSource.unwrap(TransactionalDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    public void afterCommit(Runnable action){
+        Transaction tx = bound.get();
+        if (tx == null){
+            action.run();
+        }else {
+            tx.afterCommit.add(action);
+        }
+    }
+
+    public void afterRollback(Runnable action){
+        Transaction tx = bound.get();
+        if (tx != null){
+            tx.afterRollback.add(action);
+        }
+    }
+
+    public <T> T inTransaction(Supplier<T> work){
+        return inTransaction(DEFAULT_ISOLATION, work);
+    }
+
+    public <T> T inTransaction(int isolation, Supplier<T> work){
+        Transaction tx = bound.get();
+        if (tx != null){
+            if (isolation != DEFAULT_ISOLATION && isolation != tx.isolation){
+                throw new DbException("Cannot change the isolation level of a running transaction");
+            }
+            try {
+                return work.get();
+            } catch (RuntimeException | Error e) {
+                tx.rollbackOnly = true;
+                throw e;
+            }
+        }
+
+        tx = begin(isolation);
+        bound.set(tx);
+        T result;
+        try {
+            result = work.get();
+            if (tx.rollbackOnly){
+                tx.conn.rollback();
+                throw new DbException("Transaction rolled back because a nested operation failed");
+            }
+            tx.conn.commit();
+        } catch (SQLException e) {
+            rollbackQuietly(tx.conn);
+            runAll(tx.afterRollback, 0);
+            throw new DbException(e.getMessage());
+        } catch (RuntimeException | Error e) {
+            rollbackQuietly(tx.conn);
+            runAll(tx.afterRollback, 0);
+            throw e;
+        } finally {
+            bound.remove();
+            end(tx);
+        }
+        for (Runnable action : tx.afterCommit){
+            action.run();
+        }
+        return result;
+    }
+
+    public <T> T inSavepoint(Supplier<T> work){
+        Transaction tx = bound.get();
+        if (tx == null){
+            return inTransaction(work);
+        }
+        Savepoint savepoint;
+        try {
+            savepoint = tx.conn.setSavepoint();
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+        int pendingActions = tx.afterCommit.size();
+        int rollbackActions = tx.afterRollback.size();
+        T result;
+        try {
+            result = work.get();
+        } catch (RuntimeException | Error e) {
+            tx.afterCommit.subList(pendingActions, tx.afterCommit.size()).clear();
+            try {
+                tx.conn.rollback(savepoint);
+                runAll(tx.afterRollback, rollbackActions);
+            } catch (SQLException rollbackError) {
+                tx.rollbackOnly = true;
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        }
+        try {
+            tx.conn.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            // some drivers release savepoints implicitly, the transaction is still intact
+        }
+        return result;
+    }
+
+    private Transaction begin(int isolation){
+        Connection conn = null;
+        try {
+            conn = target.getConnection();
+            int previousIsolation = conn.getTransactionIsolation();
+            if (isolation != DEFAULT_ISOLATION && isolation != previousIsolation){
+                conn.setTransactionIsolation(isolation);
+            }
+            conn.setAutoCommit(false);
+            return new Transaction(conn, previousIsolation,
+                    isolation == DEFAULT_ISOLATION ? previousIsolation : isolation);
+        } catch (SQLException e) {
+            DB.closeConnection(conn);
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    private static void end(Transaction tx){
+        try {
+            tx.conn.setAutoCommit(true);
+            if (tx.isolation != tx.previousIsolation){
+                tx.conn.setTransactionIsolation(tx.previousIsolation);
+            }
+        } catch (SQLException e) {
+            // the pool resets autocommit when the connection is returned
+        } finally {
+            DB.closeConnection(tx.conn);
+        }
+    }
+
+    private static void runAll(List<Runnable> actions, int from){
+        List<Runnable> run = actions.subList(from, actions.size());
+        for (int i = run.size() - 1; i >= 0; i--){
+            run.get(i).run();
+        }
+        run.clear();
+    }
+
+    private static void rollbackQuietly(Connection conn){
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            // the pool discards or resets the connection when it is returned
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return target.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        target.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        target.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return target.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return target.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)){
+            return iface.cast(this);
+        }
+        return target.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || target.isWrapperFor(iface);
+    }
+
+    private static final class Transaction {
+
+        private final Connection conn;
+        private final int previousIsolation;
+        private final int isolation;
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private final List<Runnable> afterRollback = new ArrayList<>();
+        private boolean rollbackOnly = false;
+
+        private Transaction(Connection conn, int previousIsolation, int isolation){
+            this.conn = conn;
+            this.previousIsolation = previousIsolation;
+            this.isolation = isolation;
+        }
+    }
+
+    private static final class EnlistedHandler implements InvocationHandler {
+
+        private final Connection conn;
+        private boolean closed = false;
+
+        private EnlistedHandler(Connection conn){
+            this.conn = conn;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()){
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed || conn.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Enlisted" + conn;
+                case "commit":
+                case "setTransactionIsolation":
+                case "setReadOnly":
+                    throw new SQLException(method.getName() + " is not allowed inside DB.inTransaction");
+                case "rollback":
+                    if (args == null){
+                        throw new SQLException("rollback is not allowed inside DB.inTransaction, throw or use DB.inSavepoint");
+                    }
+                    break;
+                case "setAutoCommit":
+                    if ((Boolean) args[0]){
+                        throw new SQLException("setAutoCommit(true) is not allowed inside DB.inTransaction");
+                    }
+                    return null;
+            }
+            if (closed){
+                throw new SQLException("Connection has already been closed");
+            }
+            try {
+                return method.invoke(conn, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
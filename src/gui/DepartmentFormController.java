@@ -1,17 +1,17 @@
 package gui;
 
-import db.DbException;
+import gui.listeners.DataChangeEvent;
 import gui.listeners.DataChangeListener;
-import gui.util.Alerts;
+import gui.util.Background;
 import gui.util.Constraints;
 import gui.util.Utils;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
-import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
+import javafx.stage.Stage;
 import model.entities.Department;
 import model.exceptions.ValidationException;
 import model.services.DepartmentService;
@@ -25,7 +25,7 @@ public class DepartmentFormController implements Initializable {
 
     private DepartmentService service;
 
-    private List<DataChangeListener> dataChangeListeners = new ArrayList<>();
+    private List<DataChangeListener<Department>> dataChangeListeners = new ArrayList<>();
 
     @FXML
     private TextField txtId;
@@ -50,7 +50,7 @@ public class DepartmentFormController implements Initializable {
         this.service = service;
     }
 
-    public void subscribeDataChangeListener(DataChangeListener listener){
+    public void subscribeDataChangeListener(DataChangeListener<Department> listener){
         dataChangeListeners.add(listener);
     }
 
@@ -64,19 +64,24 @@ public class DepartmentFormController implements Initializable {
         }
         try {
             entity = getFormData();
-            service.saveOrUpdate(entity);
-            notifyDataChangeListener();
-            Utils.currentStage(event).close();
         }catch (ValidationException e){
             setErrorMessages(e.getErrors());
-        }catch (DbException e){
-            Alerts.showAlert("Error saving obj", null, e.getMessage(), Alert.AlertType.ERROR);
+            return;
         }
+        Stage stage = Utils.currentStage(event);
+        DataChangeEvent.Type type = entity.getId() == null ? DataChangeEvent.Type.INSERTED : DataChangeEvent.Type.UPDATED;
+        Background.submit(() -> {
+            service.saveOrUpdate(entity);
+            return entity;
+        }, saved -> {
+            notifyDataChangeListener(new DataChangeEvent<>(type, saved));
+            stage.close();
+        }, "Error saving obj", null, btnSave, btnCancel);
     }
 
-    private void notifyDataChangeListener() {
-        for (DataChangeListener listener : dataChangeListeners){
-            listener.onDataChanged();
+    private void notifyDataChangeListener(DataChangeEvent<Department> event) {
+        for (DataChangeListener<Department> listener : dataChangeListeners){
+            listener.onDataChanged(event);
         }
     }
 
@@ -1,8 +1,9 @@
 package gui;
 
-import db.DbIntegrityException;
+import gui.listeners.DataChangeEvent;
 import gui.listeners.DataChangeListener;
 import gui.util.Alerts;
+import gui.util.Background;
 import gui.util.Utils;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
@@ -17,17 +18,19 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.Pane;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import model.dao.SortSpec;
 import model.entities.Department;
 import model.services.DepartmentService;
 import sample.Main;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
-public class DepartmentListController implements Initializable, DataChangeListener {
+public class DepartmentListController implements Initializable, DataChangeListener<Department> {
 
     private DepartmentService service;
 
@@ -43,7 +46,13 @@ public class DepartmentListController implements Initializable, DataChangeListen
     private TableColumn<Department, Department> tableColumnRemove;
     @FXML
     private Button btnNew;
+    @FXML
+    private ProgressIndicator progressIndicator;
     private ObservableList<Department> obsList;
+    private final Map<TableColumn<Department, ?>, String> sortProperties = new HashMap<>();
+    private SortSpec sort = DEFAULT_SORT;
+
+    private static final SortSpec DEFAULT_SORT = SortSpec.ascending("id");
 
     @FXML
     public void onBtnNewAction(ActionEvent event){
@@ -67,17 +76,45 @@ public class DepartmentListController implements Initializable, DataChangeListen
         tableColumnName.setCellValueFactory(new PropertyValueFactory<>("name"));
         Stage stage = (Stage) Main.getMainScene().getWindow();
         departmentTableView.prefHeightProperty().bind(stage.heightProperty());
+
+        sortProperties.put(tableColumnId, "id");
+        sortProperties.put(tableColumnName, "name");
+        tableColumnEdit.setSortable(false);
+        tableColumnRemove.setSortable(false);
+        departmentTableView.setSortPolicy(table -> {
+            applySort();
+            return true;
+        });
+    }
+
+    private void applySort(){
+        SortSpec newSort = DEFAULT_SORT;
+        if (!departmentTableView.getSortOrder().isEmpty()){
+            TableColumn<Department, ?> column = departmentTableView.getSortOrder().get(0);
+            String property = sortProperties.get(column);
+            if (property != null){
+                newSort = new SortSpec(property, column.getSortType() == TableColumn.SortType.ASCENDING);
+            }
+        }
+        if (!newSort.equals(sort)){
+            sort = newSort;
+            if (obsList != null){
+                updateTableView();
+            }
+        }
     }
 
     public void updateTableView(){
         if (service == null){
             throw new IllegalStateException("Service was null");
         }
-        List<Department> list = service.findAll();
-        obsList = FXCollections.observableArrayList(list);
-        departmentTableView.setItems(obsList);
-        initEditButtons();
-        initRemoveButtons();
+        SortSpec loadSort = sort;
+        Background.submit(() -> service.findAll(loadSort), list -> {
+            obsList = FXCollections.observableArrayList(list);
+            departmentTableView.setItems(obsList);
+            initEditButtons();
+            initRemoveButtons();
+        }, "Error loading departments", progressIndicator);
     }
 
     private void createDialogForm(Department department ,String absoluteName,Stage parentStage){
@@ -151,17 +188,35 @@ public class DepartmentListController implements Initializable, DataChangeListen
             if (service == null){
                 throw new IllegalStateException("Service was null");
             }
-            try {
+            Background.submit(() -> {
                 service.remove(department);
-                updateTableView();
-            }catch (DbIntegrityException e){
-                Alerts.showAlert("Error removing object", null, e.getMessage(), Alert.AlertType.ERROR);
-            }
+                return department;
+            }, removed -> onDataChanged(new DataChangeEvent<>(DataChangeEvent.Type.DELETED, removed)),
+                    "Error removing object", progressIndicator, departmentTableView, btnNew);
         }
     }
 
     @Override
-    public void onDataChanged() {
-        updateTableView();
+    public void onDataChanged(DataChangeEvent<Department> event) {
+        if (obsList == null){
+            updateTableView();
+            return;
+        }
+        int index = obsList.indexOf(event.getEntity());
+        switch (event.getType()){
+            case INSERTED:
+                obsList.add(event.getEntity());
+                break;
+            case UPDATED:
+                if (index >= 0){
+                    obsList.set(index, event.getEntity());
+                }
+                break;
+            case DELETED:
+                if (index >= 0){
+                    obsList.remove(index);
+                }
+                break;
+        }
     }
 }
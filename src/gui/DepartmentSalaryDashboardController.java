@@ -0,0 +1,83 @@
+package gui;
+
+import gui.util.Background;
+import gui.util.Utils;
+import javafx.collections.FXCollections;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Button;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.Stage;
+import model.entities.DepartmentSalarySummary;
+import model.services.SellerService;
+import sample.Main;
+
+import java.net.URL;
+import java.util.ResourceBundle;
+
+public class DepartmentSalaryDashboardController implements Initializable {
+
+    private SellerService service;
+
+    @FXML
+    private TableView<DepartmentSalarySummary> summaryTableView;
+    @FXML
+    private TableColumn<DepartmentSalarySummary, String> tableColumnDepartment;
+    @FXML
+    private TableColumn<DepartmentSalarySummary, Integer> tableColumnHeadcount;
+    @FXML
+    private TableColumn<DepartmentSalarySummary, Double> tableColumnTotal;
+    @FXML
+    private TableColumn<DepartmentSalarySummary, Double> tableColumnAverage;
+    @FXML
+    private TableColumn<DepartmentSalarySummary, Double> tableColumnMin;
+    @FXML
+    private TableColumn<DepartmentSalarySummary, Double> tableColumnMax;
+    @FXML
+    private Button btnRefresh;
+    @FXML
+    private ProgressIndicator progressIndicator;
+
+    @FXML
+    public void onBtnRefreshAction(ActionEvent event){
+        updateTableView();
+    }
+
+    public void setSellerService(SellerService service){
+        this.service = service;
+    }
+
+    @Override
+    public void initialize(URL url, ResourceBundle resourceBundle) {
+        initializeNodes();
+    }
+
+    private void initializeNodes() {
+        tableColumnDepartment.setCellValueFactory(new PropertyValueFactory<>("departmentName"));
+        tableColumnHeadcount.setCellValueFactory(new PropertyValueFactory<>("headcount"));
+        tableColumnTotal.setCellValueFactory(new PropertyValueFactory<>("totalSalary"));
+        Utils.formatTableColumnDouble(tableColumnTotal, 2);
+        tableColumnAverage.setCellValueFactory(new PropertyValueFactory<>("averageSalary"));
+        Utils.formatTableColumnDouble(tableColumnAverage, 2);
+        tableColumnMin.setCellValueFactory(new PropertyValueFactory<>("minSalary"));
+        Utils.formatTableColumnDouble(tableColumnMin, 2);
+        tableColumnMax.setCellValueFactory(new PropertyValueFactory<>("maxSalary"));
+        Utils.formatTableColumnDouble(tableColumnMax, 2);
+
+        Stage stage = (Stage) Main.getMainScene().getWindow();
+        summaryTableView.prefHeightProperty().bind(stage.heightProperty());
+    }
+
+    public void updateTableView(){
+        if (service == null){
+            throw new IllegalStateException("Service was null");
+        }
+        Background.submit(service::summarizeSalaryByDepartment,
+                list -> summaryTableView.setItems(FXCollections.observableArrayList(list)),
+                "Error loading salary summary", progressIndicator, btnRefresh);
+    }
+}
@@ -1,10 +1,11 @@
 package gui;
 
+import db.DB;
 import gui.util.Alerts;
+import gui.util.ViewRegistry;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.MenuItem;
@@ -16,6 +17,7 @@ import sample.Main;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.function.Consumer;
 
@@ -27,50 +29,78 @@ public class MainViewController implements Initializable {
     @FXML
     private MenuItem menuItemDepartment;
     
+    @FXML
+    private MenuItem menuItemSalaryDashboard;
+
     @FXML
     private MenuItem menuItemAbout;
 
+    private static final String SELLER_LIST = "/gui/SellerList.fxml";
+    private static final String DEPARTMENT_LIST = "/gui/DepartmentList.fxml";
+    private static final String SALARY_DASHBOARD = "/gui/DepartmentSalaryDashboard.fxml";
+
+    private ViewRegistry views;
+
+
+    private Runnable refreshCurrentView = () -> {};
+
     @FXML
     public void onMenuItemSellerAction(){
-        loadView("/gui/SellerList.fxml", (SellerListController controller) -> {
-            controller.setSellerService(new SellerService());
-            controller.updateTableView();
-        });
+        loadView(SELLER_LIST,
+                (SellerListController controller) -> controller.setSellerService(new SellerService()),
+                SellerListController::updateTableView);
     }
 
     @FXML
     public void onMenuItemDepartmentAction(){
-        loadView("/gui/DepartmentList.fxml", (DepartmentListController controller) -> {
-            controller.setDepartmentService(new DepartmentService());
-            controller.updateTableView();
-        });
+        loadView(DEPARTMENT_LIST,
+                (DepartmentListController controller) -> controller.setDepartmentService(new DepartmentService()),
+                DepartmentListController::updateTableView);
+    }
+
+    @FXML
+    public void onMenuItemSalaryDashboardAction(){
+        loadView(SALARY_DASHBOARD,
+                (DepartmentSalaryDashboardController controller) -> controller.setSellerService(new SellerService()),
+                DepartmentSalaryDashboardController::updateTableView);
     }
 
     @FXML
     public void onMenuItemAboutAction(){
-        loadView("/gui/About.fxml", x -> {});
+        loadView("/gui/About.fxml", x -> {}, x -> {});
+    }
+
+    public void refreshCurrentView(){
+        refreshCurrentView.run();
     }
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-
+        views = new ViewRegistry(DB.getIntProperty("view.cacheSize", 4));
+        if (DB.getBooleanProperty("view.prewarm", true)){
+            Platform.runLater(() -> views.prewarm(List.of(SELLER_LIST, DEPARTMENT_LIST, SALARY_DASHBOARD)));
+        }
     }
 
-    private synchronized <T> void loadView(String absoluteName, Consumer<T> initializingAction){
+    private synchronized <T> void loadView(String absoluteName, Consumer<T> initializingAction, Consumer<T> showingAction){
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(absoluteName));
-            VBox root = loader.load();
+            long start = System.nanoTime();
+            boolean cached = views.isCached(absoluteName);
+            ViewRegistry.View view = views.get(absoluteName);
             Scene mainScene = Main.getMainScene();
             VBox mainVbox = (VBox)((ScrollPane)mainScene.getRoot()).getContent();
-
-            Node mainMenu = mainVbox.getChildren().get(0);
-            mainVbox.getChildren().clear();
-            mainVbox.getChildren().add(mainMenu);
-            mainVbox.getChildren().addAll(root.getChildren());
-
-            T controller = loader.getController();
-            initializingAction.accept(controller);
-
+            views.show(view, mainVbox);
+
+            T controller = view.getController();
+            if (!view.isInitialized()){
+                initializingAction.accept(controller);
+                view.setInitialized();
+            }
+            showingAction.accept(controller);
+            refreshCurrentView = () -> showingAction.accept(controller);
+
+            long nanos = System.nanoTime() - start;
+            views.recordSwitch(cached, nanos);
         } catch (IOException e) {
             Alerts.showAlert("IO Exception", "Error loading view", e.getMessage(), Alert.AlertType.ERROR);
         }
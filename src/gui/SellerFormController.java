@@ -1,8 +1,8 @@
 package gui;
 
-import db.DbException;
+import gui.listeners.DataChangeEvent;
 import gui.listeners.DataChangeListener;
-import gui.util.Alerts;
+import gui.util.Background;
 import gui.util.Constraints;
 import gui.util.Utils;
 import javafx.collections.FXCollections;
@@ -11,12 +11,14 @@ import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
+import javafx.stage.Stage;
 import javafx.util.Callback;
 import model.entities.Department;
 import model.entities.Seller;
 import model.exceptions.ValidationException;
 import model.services.DepartmentService;
 import model.services.SellerService;
+import model.services.SellerValidator;
 
 import java.net.URL;
 import java.time.Instant;
@@ -28,11 +30,13 @@ public class SellerFormController implements Initializable {
 
     private Seller entity;
 
+    private Seller original;
+
     private SellerService sellerService;
 
     private DepartmentService departmentService;
 
-    private List<DataChangeListener> dataChangeListeners = new ArrayList<>();
+    private List<DataChangeListener<Seller>> dataChangeListeners = new ArrayList<>();
 
     @FXML
     private TextField txtId;
@@ -67,6 +71,7 @@ public class SellerFormController implements Initializable {
 
     public void setSeller(Seller entity){
         this.entity = entity;
+        this.original = entity;
     }
 
     public void setServices(SellerService sellerService, DepartmentService departmentService){
@@ -74,7 +79,7 @@ public class SellerFormController implements Initializable {
         this.departmentService = departmentService;
     }
 
-    public void subscribeDataChangeListener(DataChangeListener listener){
+    public void subscribeDataChangeListener(DataChangeListener<Seller> listener){
         dataChangeListeners.add(listener);
     }
 
@@ -88,54 +93,41 @@ public class SellerFormController implements Initializable {
         }
         try {
             entity = getFormData();
-            sellerService.saveOrUpdate(entity);
-            notifyDataChangeListener();
-            Utils.currentStage(event).close();
         }catch (ValidationException e){
             setErrorMessages(e.getErrors());
-        }catch (DbException e){
-            Alerts.showAlert("Error saving obj", null, e.getMessage(), Alert.AlertType.ERROR);
+            return;
         }
+        Stage stage = Utils.currentStage(event);
+        DataChangeEvent.Type type = entity.getId() == null ? DataChangeEvent.Type.INSERTED : DataChangeEvent.Type.UPDATED;
+        Background.submit(() -> {
+            sellerService.saveOrUpdate(entity, original);
+            return entity;
+        }, saved -> {
+            notifyDataChangeListener(new DataChangeEvent<>(type, saved));
+            stage.close();
+        }, "Error saving obj", null, btnSave, btnCancel);
     }
 
-    private void notifyDataChangeListener() {
-        for (DataChangeListener listener : dataChangeListeners){
-            listener.onDataChanged();
+    private void notifyDataChangeListener(DataChangeEvent<Seller> event) {
+        for (DataChangeListener<Seller> listener : dataChangeListeners){
+            listener.onDataChanged(event);
         }
     }
 
     private Seller getFormData() {
         Seller seller = new Seller();
 
-        ValidationException exception = new ValidationException("Validation error");
         seller.setId(Utils.tryParseToInt(txtId.getText()));
-        if (txtName.getText() == null || txtName.getText().trim().equals("")){
-            exception.addError("name", "Field can't be empty");
-        }
         seller.setName(txtName.getText());
-
-        if (txtEmail.getText() == null || txtEmail.getText().trim().equals("")){
-            exception.addError("email", "Field can't be empty");
-        }
         seller.setEmail(txtEmail.getText());
-
-        if (dpBirthDate.getValue() == null){
-            exception.addError("birthDate", "Field can't be empty");
-        }else {
+        if (dpBirthDate.getValue() != null){
             Instant instant = Instant.from(dpBirthDate.getValue().atStartOfDay(ZoneId.systemDefault()));
             seller.setBirthDate(Date.from(instant));
         }
-
-        if (txtBaseSalary.getText() == null || txtBaseSalary.getText().trim().equals("")){
-            exception.addError("baseSalary", "Field can't be empty");
-        }
         seller.setBaseSalary(Utils.tryParseToDouble(txtBaseSalary.getText()));
-
         seller.setDepartment(departmentComboBox.getValue());
 
-        if (exception.getErrors().size() > 0){
-            throw exception;
-        }
+        SellerValidator.validate(seller);
 
         return seller;
     }
@@ -152,8 +144,8 @@ public class SellerFormController implements Initializable {
 
     private void initializeNodes(){
         Constraints.setTextFieldInteger(txtId);
-        Constraints.setTextFieldMaxLength(txtName, 60);
-        Constraints.setTextFieldMaxLength(txtEmail, 50);
+        Constraints.setTextFieldMaxLength(txtName, SellerValidator.NAME_MAX_LENGTH);
+        Constraints.setTextFieldMaxLength(txtEmail, SellerValidator.EMAIL_MAX_LENGTH);
         Constraints.setTextFieldDouble(txtBaseSalary);
         Utils.formatDatePicker(dpBirthDate, "dd/MM/yyyy");
         initializeComboBoxDepartment();
@@ -182,9 +174,13 @@ public class SellerFormController implements Initializable {
         if (departmentService == null){
             throw new IllegalStateException("Department service was null");
         }
-        List<Department> list = departmentService.findAll();
-        obsList = FXCollections.observableArrayList(list);
-        departmentComboBox.setItems(obsList);
+        Background.submit(departmentService::findAll, list -> {
+            obsList = FXCollections.observableArrayList(list);
+            departmentComboBox.setItems(obsList);
+            if (departmentComboBox.getValue() == null){
+                departmentComboBox.getSelectionModel().selectFirst();
+            }
+        }, "Error loading departments", null, btnSave, departmentComboBox);
     }
 
     private void setErrorMessages(Map<String, String > errors){
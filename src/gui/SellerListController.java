@@ -1,12 +1,17 @@
 package gui;
 
-import db.DbIntegrityException;
+import gui.listeners.DataChangeEvent;
 import gui.listeners.DataChangeListener;
 import gui.util.Alerts;
+import gui.util.Background;
+import gui.util.LazyPagedList;
 import gui.util.Utils;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -15,21 +20,40 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.Pane;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import model.dao.SortCollation;
+import model.dao.SortSpec;
 import model.entities.Seller;
 import model.services.DepartmentService;
+import model.services.ImportProgress;
+import model.services.SellerExportService;
+import model.services.SellerChangePoller;
+import model.services.SellerImportService;
+import model.services.SellerSnapshot;
+import model.services.SellerSnapshotService;
 import model.services.SellerService;
 import sample.Main;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
-public class SellerListController implements Initializable, DataChangeListener {
+public class SellerListController implements Initializable, DataChangeListener<Seller> {
 
     private SellerService service;
 
@@ -51,7 +75,35 @@ public class SellerListController implements Initializable, DataChangeListener {
     private TableColumn<Seller, Seller> tableColumnRemove;
     @FXML
     private Button btnNew;
-    private ObservableList<Seller> obsList;
+    @FXML
+    private Button btnImport;
+    @FXML
+    private Button btnExport;
+    @FXML
+    private ProgressBar jobProgressBar;
+    @FXML
+    private Label labelJobStatus;
+    @FXML
+    private TextField txtSearch;
+    @FXML
+    private ProgressIndicator progressIndicator;
+    private LazyPagedList<Seller> obsList;
+    private SellerPageSource pageSource;
+    private final Map<TableColumn<Seller, ?>, String> sortProperties = new HashMap<>();
+    private SortSpec sort = DEFAULT_SORT;
+    private final ObservableList<Seller> searchResults = FXCollections.observableArrayList();
+    private final PauseTransition searchDelay = new PauseTransition(Duration.millis(SEARCH_DELAY_MILLIS));
+    private Task<List<Seller>> searchTask;
+    private int searchGeneration = 0;
+    private SellerChangePoller changePoller;
+
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_PAGES = 10;
+    private static final int SEARCH_LIMIT = 200;
+    private static final int SEARCH_DELAY_MILLIS = 300;
+    private static final SortSpec DEFAULT_SORT = SortSpec.ascending("id");
+    private static final Comparator<String> TEXT_ORDER = Comparator.nullsFirst(SortCollation.configured());
+    private static final int MAX_INCREMENTAL_CHANGES = 50;
 
     @FXML
     public void onBtnNewAction(ActionEvent event){
@@ -60,6 +112,128 @@ public class SellerListController implements Initializable, DataChangeListener {
         createDialogForm(seller,"/gui/SellerForm.fxml", parentStage);
     }
 
+    @FXML
+    public void onBtnImportAction(ActionEvent event){
+        Stage parentStage = Utils.currentStage(event);
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import sellers");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showOpenDialog(parentStage);
+        if (file == null){
+            return;
+        }
+        Path errorReport;
+        try {
+            errorReport = Files.createTempFile("seller-import-errors", ".csv");
+            errorReport.toFile().deleteOnExit();
+        } catch (IOException e) {
+            Alerts.showAlert("IO exception", "Error creating error report", e.getMessage(), Alert.AlertType.ERROR);
+            return;
+        }
+
+        SellerImportService importService = new SellerImportService();
+        Task<ImportProgress> task = new Task<>() {
+            @Override
+            protected ImportProgress call() throws Exception {
+                return importService.importFile(file.toPath(), errorReport, progress -> {
+                    updateProgress(progress.getBytesRead(), progress.getTotalBytes());
+                    updateMessage(String.format("%d imported, %d rejected", progress.getRowsInserted(), progress.getRowsRejected()));
+                });
+            }
+        };
+        jobProgressBar.progressProperty().bind(task.progressProperty());
+        labelJobStatus.textProperty().bind(task.messageProperty());
+        setJobRunning(true);
+
+        task.setOnSucceeded(e -> {
+            setJobRunning(false);
+            onImportFinished(task.getValue(), parentStage);
+        });
+        task.setOnFailed(e -> {
+            setJobRunning(false);
+            Alerts.showAlert("Error importing sellers", null, task.getException().getMessage(), Alert.AlertType.ERROR);
+            updateTableView();
+        });
+        Background.execute(task);
+    }
+
+    @FXML
+    public void onBtnExportAction(ActionEvent event){
+        Stage parentStage = Utils.currentStage(event);
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export sellers");
+        chooser.setInitialFileName("sellers.csv");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showSaveDialog(parentStage);
+        if (file == null){
+            return;
+        }
+
+        SellerExportService exportService = new SellerExportService();
+        Task<Long> task = new Task<>() {
+            @Override
+            protected Long call() throws Exception {
+                return exportService.export(file.toPath(), (rowsWritten, totalRows) -> {
+                    updateProgress(rowsWritten, totalRows);
+                    updateMessage(rowsWritten + " of " + totalRows + " exported");
+                });
+            }
+        };
+        jobProgressBar.progressProperty().bind(task.progressProperty());
+        labelJobStatus.textProperty().bind(task.messageProperty());
+        setJobRunning(true);
+
+        task.setOnSucceeded(e -> {
+            setJobRunning(false);
+            Alerts.showAlert("Export finished", null,
+                    task.getValue() + " sellers exported to " + file.getName(), Alert.AlertType.INFORMATION);
+        });
+        task.setOnFailed(e -> {
+            setJobRunning(false);
+            Alerts.showAlert("Error exporting sellers", null, task.getException().getMessage(), Alert.AlertType.ERROR);
+        });
+        Background.execute(task);
+    }
+
+    private void setJobRunning(boolean running){
+        if (!running){
+            jobProgressBar.progressProperty().unbind();
+            labelJobStatus.textProperty().unbind();
+        }
+        jobProgressBar.setVisible(running);
+        labelJobStatus.setVisible(running);
+        btnImport.setDisable(running);
+        btnExport.setDisable(running);
+    }
+
+    private void onImportFinished(ImportProgress result, Stage parentStage){
+        updateTableView();
+        String summary = String.format("%d sellers imported and %d rows rejected in %.1f s.",
+                result.getRowsInserted(), result.getRowsRejected(), result.getElapsedMillis() / 1000.0);
+        if (result.getDepartmentsCreated() > 0){
+            summary += String.format(" %d new departments were created.", result.getDepartmentsCreated());
+        }
+        if (result.getErrorReport() == null){
+            Alerts.showAlert("Import finished", null, summary, Alert.AlertType.INFORMATION);
+            return;
+        }
+        Optional<ButtonType> answer = Alerts.showConfirmation("Import finished", summary + " Save the error report?");
+        if (answer.isEmpty() || answer.get() != ButtonType.OK){
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Save error report");
+        chooser.setInitialFileName("seller-import-errors.csv");
+        File target = chooser.showSaveDialog(parentStage);
+        if (target != null){
+            try {
+                Files.copy(result.getErrorReport(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Alerts.showAlert("IO exception", "Error saving error report", e.getMessage(), Alert.AlertType.ERROR);
+            }
+        }
+    }
+
     public void setSellerService(SellerService service){
         this.service = service;
     }
@@ -81,17 +255,195 @@ public class SellerListController implements Initializable, DataChangeListener {
 
         Stage stage = (Stage) Main.getMainScene().getWindow();
         sellerTableView.prefHeightProperty().bind(stage.heightProperty());
+
+        sortProperties.put(tableColumnId, "id");
+        sortProperties.put(tableColumnName, "name");
+        sortProperties.put(tableColumnEmail, "email");
+        sortProperties.put(tableColumnBirthDate, "birthDate");
+        sortProperties.put(tableColumnBaseSalary, "baseSalary");
+        tableColumnEdit.setSortable(false);
+        tableColumnRemove.setSortable(false);
+        sellerTableView.setSortPolicy(table -> {
+            applySort();
+            return true;
+        });
+        sellerTableView.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null){
+                stopChangePolling();
+            }else {
+                startChangePolling();
+            }
+        });
+
+        searchDelay.setOnFinished(event -> search());
+        txtSearch.textProperty().addListener((obs, oldValue, newValue) -> searchDelay.playFromStart());
+    }
+
+    private void applySort(){
+        SortSpec newSort = DEFAULT_SORT;
+        if (!sellerTableView.getSortOrder().isEmpty()){
+            TableColumn<Seller, ?> column = sellerTableView.getSortOrder().get(0);
+            String property = sortProperties.get(column);
+            if (property != null){
+                newSort = new SortSpec(property, column.getSortType() == TableColumn.SortType.ASCENDING);
+            }
+        }
+        if (newSort.equals(sort)){
+            return;
+        }
+        sort = newSort;
+        if (obsList != null){
+            pageSource.setSort(sort);
+            obsList.setOrder(comparatorFor(sort));
+        }
+        if (!searchText().isEmpty()){
+            search();
+        }
+    }
+
+    private static Comparator<Seller> comparatorFor(SortSpec sort){
+        Comparator<Seller> comparator;
+        switch (sort.getProperty()){
+            case "name":
+                comparator = Comparator.comparing(Seller::getName, TEXT_ORDER);
+                break;
+            case "email":
+                comparator = Comparator.comparing(Seller::getEmail, TEXT_ORDER);
+                break;
+            case "birthDate":
+                comparator = Comparator.comparing(Seller::getBirthDate, Comparator.nullsFirst(Comparator.naturalOrder()));
+                break;
+            case "baseSalary":
+                comparator = Comparator.comparingDouble(seller -> seller.getBaseSalary() == null ? 0.0 : seller.getBaseSalary());
+                break;
+            case "department":
+                comparator = Comparator.comparing(seller -> seller.getDepartment().getName(), TEXT_ORDER);
+                break;
+            default:
+                comparator = (a, b) -> 0;
+        }
+        comparator = comparator.thenComparing(Seller::getId);
+        return sort.isAscending() ? comparator : comparator.reversed();
+    }
+
+    private String searchText(){
+        return txtSearch.getText() == null ? "" : txtSearch.getText().trim();
+    }
+
+    private void search(){
+        if (service == null){
+            throw new IllegalStateException("Service was null");
+        }
+        int gen = ++searchGeneration;
+        if (searchTask != null){
+            searchTask.cancel(false);
+            searchTask = null;
+        }
+        String text = searchText();
+        SortSpec searchSort = sort;
+        if (text.isEmpty()){
+            searchResults.clear();
+            sellerTableView.setItems(obsList);
+            return;
+        }
+        searchTask = Background.submit(() -> service.search(text, searchSort, SEARCH_LIMIT), results -> {
+            if (gen == searchGeneration){
+                searchTask = null;
+                searchResults.setAll(results);
+                sellerTableView.setItems(searchResults);
+            }
+        }, "Error searching sellers", null);
     }
 
     public void updateTableView(){
         if (service == null){
             throw new IllegalStateException("Service was null");
         }
-        List<Seller> list = service.findAll();
-        obsList = FXCollections.observableArrayList(list);
-        sellerTableView.setItems(obsList);
-        initEditButtons();
-        initRemoveButtons();
+        if (obsList == null){
+            pageSource = new SellerPageSource(service, sort);
+            obsList = new LazyPagedList<>(pageSource, comparatorFor(sort), PAGE_SIZE, MAX_PAGES);
+            sellerTableView.setItems(obsList);
+            progressIndicator.visibleProperty().bind(obsList.busyProperty());
+            initEditButtons();
+            initRemoveButtons();
+            if (sellerTableView.getScene() != null){
+                startChangePolling();
+            }
+            if (SellerSnapshotService.isEnabled()){
+                openFromSnapshot();
+                return;
+            }
+        }
+        obsList.reload();
+    }
+
+    private void openFromSnapshot(){
+        LazyPagedList<Seller> list = obsList;
+        SellerPageSource source = pageSource;
+        Background.execute(() -> {
+            SellerSnapshot snapshot = null;
+            boolean shown = false;
+            try {
+                SellerSnapshotService snapshots = new SellerSnapshotService();
+                snapshot = snapshots.load();
+                if (snapshot != null){
+                    source.useSnapshot(snapshot);
+                }
+                Platform.runLater(list::reload);
+                shown = true;
+
+                snapshots.refresh(snapshot);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not refresh the seller snapshot: " + e.getMessage());
+                if (!shown){
+                    Platform.runLater(list::reload);
+                }
+            }
+            if (snapshot != null){
+                source.useSnapshot(null);
+                Platform.runLater(list::reload);
+            }
+        });
+    }
+
+    private void startChangePolling(){
+        if (changePoller != null || obsList == null || !SellerChangePoller.isEnabled()){
+            return;
+        }
+        changePoller = new SellerChangePoller();
+        changePoller.start((inserted, updated, deleted) ->
+                Platform.runLater(() -> onRemoteChanges(inserted, updated, deleted)));
+    }
+
+    private void stopChangePolling(){
+        if (changePoller != null){
+            changePoller.stop();
+            changePoller = null;
+        }
+    }
+
+    private void onRemoteChanges(List<Seller> inserted, List<Seller> updated, List<Integer> deleted){
+        if (obsList == null || sellerTableView.getScene() == null){
+            return;
+        }
+        if (inserted.size() + updated.size() + deleted.size() > MAX_INCREMENTAL_CHANGES){
+            updateTableView();
+            if (!searchText().isEmpty()){
+                search();
+            }
+            return;
+        }
+        for (Seller seller : inserted){
+            onDataChanged(new DataChangeEvent<>(DataChangeEvent.Type.INSERTED, seller));
+        }
+        for (Seller seller : updated){
+            onDataChanged(new DataChangeEvent<>(DataChangeEvent.Type.UPDATED, seller));
+        }
+        for (Integer id : deleted){
+            Seller seller = new Seller();
+            seller.setId(id);
+            onDataChanged(new DataChangeEvent<>(DataChangeEvent.Type.DELETED, seller));
+        }
     }
 
     private void createDialogForm(Seller seller ,String absoluteName,Stage parentStage){
@@ -166,17 +518,98 @@ public class SellerListController implements Initializable, DataChangeListener {
             if (service == null){
                 throw new IllegalStateException("Service was null");
             }
-            try {
+            Background.submit(() -> {
                 service.remove(seller);
-                updateTableView();
-            }catch (DbIntegrityException e){
-                Alerts.showAlert("Error removing object", null, e.getMessage(), Alert.AlertType.ERROR);
-            }
+                return seller;
+            }, removed -> onDataChanged(new DataChangeEvent<>(DataChangeEvent.Type.DELETED, removed)),
+                    "Error removing object", null, sellerTableView, btnNew);
         }
     }
 
     @Override
-    public void onDataChanged() {
-        updateTableView();
+    public void onDataChanged(DataChangeEvent<Seller> event) {
+        if (obsList == null){
+            updateTableView();
+            return;
+        }
+        switch (event.getType()){
+            case INSERTED:
+                obsList.insertItem(event.getEntity());
+                break;
+            case UPDATED:
+                obsList.updateItem(event.getEntity());
+                break;
+            case DELETED:
+                obsList.removeItem(event.getEntity());
+                break;
+        }
+        if (!searchText().isEmpty()){
+            search();
+        }
+    }
+
+    private static class SellerPageSource implements LazyPagedList.PageSource<Seller> {
+
+        private final SellerService service;
+        private volatile SortSpec sort;
+        private volatile SellerSnapshot snapshot;
+
+        private SellerPageSource(SellerService service, SortSpec sort){
+            this.service = service;
+            this.sort = sort;
+        }
+
+        private void setSort(SortSpec sort){
+            this.sort = sort;
+        }
+
+        private void useSnapshot(SellerSnapshot snapshot){
+            this.snapshot = snapshot;
+        }
+
+        private List<Seller> snapshotRows(SortSpec sort){
+            SellerSnapshot current = snapshot;
+            return current != null && DEFAULT_SORT.getProperty().equals(sort.getProperty()) ? current.getSellers() : null;
+        }
+
+        @Override
+        public int count() {
+            List<Seller> rows = snapshotRows(sort);
+            return rows != null ? rows.size() : service.count();
+        }
+
+        @Override
+        public List<Seller> loadPage(Seller after, int limit) {
+            SortSpec currentSort = sort;
+            List<Seller> rows = snapshotRows(currentSort);
+            if (rows == null){
+                return service.findPage(after, currentSort, limit);
+            }
+            int step = currentSort.isAscending() ? 1 : -1;
+            List<Seller> page = new ArrayList<>(limit);
+            for (int i = rowAfter(rows, after, currentSort); i >= 0 && i < rows.size() && page.size() < limit; i += step){
+                page.add(rows.get(i));
+            }
+            return page;
+        }
+
+        @Override
+        public Seller seek(Seller from, int skip, boolean backwards) {
+            SortSpec currentSort = backwards ? sort.reversed() : sort;
+            List<Seller> rows = snapshotRows(currentSort);
+            if (rows == null){
+                return service.findAt(from, skip, currentSort);
+            }
+            int index = rowAfter(rows, from, currentSort) + (currentSort.isAscending() ? skip : -skip);
+            return index >= 0 && index < rows.size() ? rows.get(index) : null;
+        }
+
+        private static int rowAfter(List<Seller> rows, Seller after, SortSpec sort){
+            int index = after == null ? -1 : Collections.binarySearch(rows, after, Comparator.comparing(Seller::getId));
+            if (sort.isAscending()){
+                return after == null ? 0 : index >= 0 ? index + 1 : -index - 1;
+            }
+            return (after == null ? rows.size() : index >= 0 ? index : -index - 1) - 1;
+        }
     }
 }
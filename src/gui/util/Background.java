@@ -0,0 +1,69 @@
+package gui.util;
+
+import javafx.concurrent.Task;
+import javafx.scene.Node;
+import javafx.scene.control.Alert;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class Background {
+
+    private static final String BUSY_COUNT_KEY = "gui.util.Background.busyCount";
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "db-worker-" + threadCount.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    public static void execute(Runnable work){
+        executor.execute(work);
+    }
+
+    public static <T> Task<T> submit(Callable<T> work, Consumer<T> onSuccess, String errorTitle,
+                                     Node indicator, Node... disabledWhileRunning){
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return work.call();
+            }
+        };
+
+        setBusy(true, indicator, disabledWhileRunning);
+        task.setOnSucceeded(event -> {
+            setBusy(false, indicator, disabledWhileRunning);
+            onSuccess.accept(task.getValue());
+        });
+        task.setOnFailed(event -> {
+            setBusy(false, indicator, disabledWhileRunning);
+            Throwable e = task.getException();
+            Alerts.showAlert(errorTitle, null, e.getMessage(), Alert.AlertType.ERROR);
+        });
+        task.setOnCancelled(event -> setBusy(false, indicator, disabledWhileRunning));
+
+        executor.execute(task);
+        return task;
+    }
+
+    private static void setBusy(boolean busy, Node indicator, Node... disabled){
+        if (indicator != null){
+            indicator.setVisible(updateBusyCount(indicator, busy) > 0);
+        }
+        for (Node node : disabled){
+            node.setDisable(updateBusyCount(node, busy) > 0);
+        }
+    }
+
+    private static int updateBusyCount(Node node, boolean busy){
+        Object current = node.getProperties().get(BUSY_COUNT_KEY);
+        int count = (current == null ? 0 : (Integer) current) + (busy ? 1 : -1);
+        node.getProperties().put(BUSY_COUNT_KEY, Math.max(count, 0));
+        return count;
+    }
+}
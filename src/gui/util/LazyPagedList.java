@@ -0,0 +1,309 @@
+package gui.util;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.Alert;
+
+import java.util.*;
+
+public class LazyPagedList<T> extends ObservableListBase<T> {
+
+    public interface PageSource<T> {
+        int count();
+        List<T> loadPage(T after, int limit);
+        T seek(T from, int skip, boolean backwards);
+    }
+
+    private final PageSource<T> source;
+    private Comparator<T> order;
+    private final int pageSize;
+    private final int maxPages;
+
+    private final TreeMap<Integer, List<T>> pages = new TreeMap<>();
+    private final TreeMap<Integer, T> pageStarts = new TreeMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    private final Set<Integer> failed = new HashSet<>();
+    private final ReadOnlyBooleanWrapper busy = new ReadOnlyBooleanWrapper(false);
+    private boolean countLoading = false;
+    private int size = 0;
+    private volatile int generation = 0;
+    private volatile int pageGeneration = 0;
+    private int currentPage = 0;
+
+    public LazyPagedList(PageSource<T> source, Comparator<T> order, int pageSize, int maxPages){
+        if (pageSize < 1 || maxPages < 2){
+            throw new IllegalArgumentException("Page size must be positive and at least two pages must be kept");
+        }
+        this.source = source;
+        this.order = order;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+    }
+
+    public void reload(){
+        int gen = ++generation;
+        pageGeneration++;
+        countLoading = true;
+        updateBusy();
+        Background.execute(() -> {
+            try {
+                int count = source.count();
+                Platform.runLater(() -> onCountLoaded(gen, count));
+            } catch (RuntimeException e) {
+                Platform.runLater(() -> {
+                    if (gen == generation){
+                        countLoading = false;
+                    }
+                    onLoadFailed(e);
+                });
+            }
+        });
+    }
+
+    public void setOrder(Comparator<T> order){
+        this.order = order;
+        reload();
+    }
+
+    public void insertItem(T item){
+        if (countLoading){
+            reload();
+            return;
+        }
+        int position = positionForInsert(item);
+        if (position < 0){
+            reload();
+            return;
+        }
+        invalidateFrom(position / pageSize);
+        size++;
+        beginChange();
+        nextAdd(position, position + 1);
+        endChange();
+    }
+
+    public void updateItem(T item){
+        for (Map.Entry<Integer, List<T>> entry : pages.entrySet()){
+            List<T> rows = entry.getValue();
+            int offset = rows.indexOf(item);
+            if (offset >= 0){
+                T old = rows.set(offset, item);
+                beginChange();
+                nextSet(entry.getKey() * pageSize + offset, old);
+                endChange();
+                return;
+            }
+        }
+    }
+
+    public void removeItem(T item){
+        if (countLoading){
+            reload();
+            return;
+        }
+        for (Map.Entry<Integer, List<T>> entry : pages.entrySet()){
+            int offset = entry.getValue().indexOf(item);
+            if (offset >= 0){
+                int page = entry.getKey();
+                T old = entry.getValue().get(offset);
+                invalidateFrom(page);
+                size--;
+                beginChange();
+                nextRemove(page * pageSize + offset, old);
+                endChange();
+                return;
+            }
+        }
+        reload();
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        int page = index / pageSize;
+        currentPage = page;
+        List<T> rows = pages.get(page);
+        if (rows == null){
+            requestPage(page);
+            return null;
+        }
+        requestPage(page + 1);
+        int offset = index % pageSize;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int getLoadedPageCount(){
+        return pages.size();
+    }
+
+    public ReadOnlyBooleanProperty busyProperty(){
+        return busy.getReadOnlyProperty();
+    }
+
+    private void updateBusy(){
+        busy.set(countLoading || !loading.isEmpty());
+    }
+
+    private int positionForInsert(T item){
+        if (size == 0){
+            return 0;
+        }
+        for (Map.Entry<Integer, List<T>> entry : pages.entrySet()){
+            int page = entry.getKey();
+            List<T> rows = entry.getValue();
+            T start = pageStarts.get(page);
+            if (rows.isEmpty() || (start != null && order.compare(item, start) <= 0)){
+                continue;
+            }
+            boolean lastPage = page * pageSize + rows.size() >= size;
+            if (lastPage || order.compare(item, rows.get(rows.size() - 1)) <= 0){
+                int offset = 0;
+                while (offset < rows.size() && order.compare(rows.get(offset), item) <= 0){
+                    offset++;
+                }
+                return page * pageSize + offset;
+            }
+        }
+        return -1;
+    }
+
+    private void invalidateFrom(int page){
+        pageGeneration++;
+        pages.tailMap(page, true).clear();
+        pageStarts.keySet().removeIf(p -> p > page);
+        loading.clear();
+        failed.clear();
+        updateBusy();
+    }
+
+    private void onCountLoaded(int gen, int count){
+        if (gen != generation){
+            return;
+        }
+        pages.clear();
+        pageStarts.clear();
+        loading.clear();
+        failed.clear();
+        countLoading = false;
+        updateBusy();
+        int oldSize = size;
+        size = count;
+        beginChange();
+        if (oldSize > 0){
+            nextRemove(0, Collections.nCopies(oldSize, null));
+        }
+        if (size > 0){
+            nextAdd(0, size);
+        }
+        endChange();
+    }
+
+    private void requestPage(int page){
+        if (page * pageSize >= size || pages.containsKey(page) || loading.contains(page) || failed.contains(page)){
+            return;
+        }
+        loading.add(page);
+        updateBusy();
+        int gen = pageGeneration;
+        boolean startKnown = page == 0 || pageStarts.containsKey(page);
+        T start = pageStarts.get(page);
+        Seek<T> seek = startKnown ? null : seekTo(page * pageSize - 1);
+        Background.execute(() -> {
+            if (gen != pageGeneration){
+                return;
+            }
+            try {
+                T after = startKnown ? start : source.seek(seek.from, seek.skip, seek.backwards);
+                List<T> rows = source.loadPage(after, pageSize);
+                Platform.runLater(() -> onPageLoaded(gen, page, after, rows));
+            } catch (RuntimeException e) {
+                Platform.runLater(() -> {
+                    if (gen == pageGeneration){
+                        loading.remove(page);
+                        failed.add(page);
+                    }
+                    onLoadFailed(e);
+                });
+            }
+        });
+    }
+
+    private Seek<T> seekTo(int index){
+        Seek<T> best = new Seek<>(null, index, false);
+        if (size - 1 - index < best.skip){
+            best = new Seek<>(null, size - 1 - index, true);
+        }
+        Map.Entry<Integer, T> below = pageStarts.floorEntry(index / pageSize);
+        if (below != null && below.getValue() != null && index - below.getKey() * pageSize < best.skip){
+            best = new Seek<>(below.getValue(), index - below.getKey() * pageSize, false);
+        }
+        Map.Entry<Integer, T> above = pageStarts.higherEntry((index + 1) / pageSize);
+        if (above != null && above.getValue() != null && above.getKey() * pageSize - index - 2 < best.skip){
+            best = new Seek<>(above.getValue(), above.getKey() * pageSize - index - 2, true);
+        }
+        return best;
+    }
+
+    private void onPageLoaded(int gen, int page, T after, List<T> rows){
+        if (gen != pageGeneration){
+            return;
+        }
+        loading.remove(page);
+        updateBusy();
+        pages.put(page, new ArrayList<>(rows));
+        pageStarts.put(page, after);
+        if (!rows.isEmpty()){
+            pageStarts.put(page + 1, rows.get(rows.size() - 1));
+        }
+
+        beginChange();
+        int from = page * pageSize;
+        int to = Math.min(from + rows.size(), size);
+        for (int i = from; i < to; i++){
+            nextSet(i, null);
+        }
+        evictFarPages();
+        endChange();
+    }
+
+    private void onLoadFailed(RuntimeException e){
+        updateBusy();
+        Alerts.showAlert("Error loading data", null, e.getMessage(), Alert.AlertType.ERROR);
+    }
+
+    private void evictFarPages(){
+        while (pages.size() > maxPages){
+            int farthest = -1;
+            for (int page : pages.keySet()){
+                if (farthest < 0 || Math.abs(page - currentPage) > Math.abs(farthest - currentPage)){
+                    farthest = page;
+                }
+            }
+            List<T> rows = pages.remove(farthest);
+            int from = farthest * pageSize;
+            int to = Math.min(from + rows.size(), size);
+            for (int i = from; i < to; i++){
+                nextSet(i, rows.get(i - from));
+            }
+        }
+    }
+
+    private static final class Seek<T> {
+        private final T from;
+        private final int skip;
+        private final boolean backwards;
+
+        private Seek(T from, int skip, boolean backwards){
+            this.from = from;
+            this.skip = skip;
+            this.backwards = backwards;
+        }
+    }
+}
@@ -43,7 +43,7 @@ public class Utils {
             @Override
             protected void updateItem(Date date, boolean b) {
                 super.updateItem(date, b);
-                if (b){
+                if (b || date == null){
                     setText(null);
                 }else {
                     setText(sdf.format(date));
@@ -57,7 +57,7 @@ public class Utils {
             @Override
             protected void updateItem(Double item, boolean b) {
                 super.updateItem(item, b);
-                if (b){
+                if (b || item == null){
                     setText(null);
                 }else {
                     Locale.setDefault(Locale.US);
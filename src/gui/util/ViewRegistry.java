@@ -0,0 +1,245 @@
+package gui.util;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.layout.VBox;
+import model.dao.metrics.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ViewRegistry implements ViewRegistryMBean {
+
+    public static final class View {
+
+        private final String name;
+        private final VBox root;
+        private final List<Node> content;
+        private final Object controller;
+        private boolean initialized = false;
+
+        private View(String name, VBox root, Object controller){
+            this.name = name;
+            this.root = root;
+            this.content = new ArrayList<>(root.getChildren());
+            this.controller = controller;
+        }
+
+        public String getName(){
+            return name;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T getController(){
+            return (T) controller;
+        }
+
+        public boolean isInitialized(){
+            return initialized;
+        }
+
+        public void setInitialized(){
+            initialized = true;
+        }
+    }
+
+    private final int maxViews;
+    private final Map<String, View> views = new LinkedHashMap<>(16, 0.75f, true);
+    private final LatencyHistogram cachedSwitches = new LatencyHistogram();
+    private final LatencyHistogram loadedSwitches = new LatencyHistogram();
+    private View current;
+    private volatile int cachedViews = 0;
+    private volatile long loads = 0;
+    private volatile long prewarmed = 0;
+    private volatile long evictions = 0;
+
+    public ViewRegistry(int maxViews){
+        if (maxViews < 1){
+            throw new IllegalArgumentException("View cache size must be positive");
+        }
+        this.maxViews = maxViews;
+        register();
+    }
+
+    private void register(){
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("gui:type=ViewRegistry");
+            if (server.isRegistered(name)){
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            System.err.println("Could not register view registry metrics: " + e.getMessage());
+        }
+    }
+
+    public boolean isCached(String name){
+        return views.containsKey(name);
+    }
+
+    public View get(String name) throws IOException {
+        View view = views.get(name);
+        if (view == null){
+            view = load(name);
+            loads++;
+            views.put(name, view);
+            cachedViews = views.size();
+        }
+        return view;
+    }
+
+    public void show(View view, VBox container){
+        Node mainMenu = container.getChildren().get(0);
+        if (current != null && current != view){
+            current.root.getChildren().setAll(current.content);
+        }
+        container.getChildren().setAll(mainMenu);
+        container.getChildren().addAll(view.content);
+        current = view;
+        evict();
+    }
+
+    public void prewarm(List<String> names){
+        Deque<String> missing = new ArrayDeque<>();
+        for (String name : names){
+            if (!views.containsKey(name)){
+                missing.add(name);
+            }
+        }
+        prewarmNext(missing);
+    }
+
+    private void prewarmNext(Deque<String> missing){
+        String name = missing.poll();
+        if (name == null){
+            return;
+        }
+        Platform.runLater(() -> {
+            if (!views.containsKey(name) && views.size() < maxViews){
+                try {
+                    views.put(name, load(name));
+                    cachedViews = views.size();
+                    prewarmed++;
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Could not pre-warm view " + name + ": " + e.getMessage());
+                }
+            }
+            prewarmNext(missing);
+        });
+    }
+
+    public void recordSwitch(boolean cached, long nanos){
+        (cached ? cachedSwitches : loadedSwitches).recordNanos(nanos);
+    }
+
+    public int size(){
+        return views.size();
+    }
+
+    @Override
+    public int getCachedViews() {
+        return cachedViews;
+    }
+
+    @Override
+    public int getMaxViews() {
+        return maxViews;
+    }
+
+    @Override
+    public long getLoads(){
+        return loads;
+    }
+
+    @Override
+    public long getPrewarmed(){
+        return prewarmed;
+    }
+
+    @Override
+    public long getEvictions(){
+        return evictions;
+    }
+
+    @Override
+    public long getCachedSwitchCount() {
+        return cachedSwitches.getCount();
+    }
+
+    @Override
+    public double getCachedSwitchMeanMillis() {
+        return cachedSwitches.getMeanMillis();
+    }
+
+    @Override
+    public double getCachedSwitchP95Millis() {
+        return cachedSwitches.getPercentileMillis(95);
+    }
+
+    @Override
+    public double getCachedSwitchMaxMillis() {
+        return cachedSwitches.getMaxMillis();
+    }
+
+    @Override
+    public long getLoadedSwitchCount() {
+        return loadedSwitches.getCount();
+    }
+
+    @Override
+    public double getLoadedSwitchMeanMillis() {
+        return loadedSwitches.getMeanMillis();
+    }
+
+    @Override
+    public double getLoadedSwitchP95Millis() {
+        return loadedSwitches.getPercentileMillis(95);
+    }
+
+    @Override
+    public double getLoadedSwitchMaxMillis() {
+        return loadedSwitches.getMaxMillis();
+    }
+
+    @Override
+    public void resetSwitchStats() {
+        cachedSwitches.reset();
+        loadedSwitches.reset();
+    }
+
+    private void evict(){
+        Iterator<View> it = views.values().iterator();
+        while (views.size() > maxViews && it.hasNext()){
+            if (it.next() != current){
+                it.remove();
+                evictions++;
+            }
+        }
+        cachedViews = views.size();
+    }
+
+    private static View load(String name) throws IOException {
+        FXMLLoader loader = new FXMLLoader(ViewRegistry.class.getResource(name));
+        VBox root = loader.load();
+        return new View(name, root, loader.getController());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ViewRegistry{views=%d/%d, loads=%d, prewarmed=%d, evictions=%d, cachedSwitches=%d, cachedMeanMs=%.2f, loadedSwitches=%d, loadedMeanMs=%.2f}",
+                cachedViews, maxViews, loads, prewarmed, evictions, getCachedSwitchCount(), getCachedSwitchMeanMillis(),
+                getLoadedSwitchCount(), getLoadedSwitchMeanMillis());
+    }
+}
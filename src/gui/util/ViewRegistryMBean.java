@@ -0,0 +1,19 @@
+package gui.util;
+
+public interface ViewRegistryMBean {
+
+    int getCachedViews();
+    int getMaxViews();
+    long getLoads();
+    long getPrewarmed();
+    long getEvictions();
+    long getCachedSwitchCount();
+    double getCachedSwitchMeanMillis();
+    double getCachedSwitchP95Millis();
+    double getCachedSwitchMaxMillis();
+    long getLoadedSwitchCount();
+    double getLoadedSwitchMeanMillis();
+    double getLoadedSwitchP95Millis();
+    double getLoadedSwitchMaxMillis();
+    void resetSwitchStats();
+}
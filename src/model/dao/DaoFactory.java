@@ -1,16 +1,98 @@
 package model.dao;
 
 import db.DB;
+import db.DbException;
+import db.RoutingDataSource;
+import model.dao.impl.DepartmentCache;
 import model.dao.impl.DepartmentDaoJDBC;
+import model.dao.impl.SalarySummaryCache;
+import model.dao.impl.SellerChangeLog;
 import model.dao.impl.SellerDaoJDBC;
+import model.dao.metrics.DaoMetrics;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
 
 public class DaoFactory {
 
+    private static DepartmentCache departmentCache = null;
+    private static SalarySummaryCache salarySummaryCache = null;
+    private static SellerChangeLog sellerChangeLog = null;
+    private static DataSource changeLogDataSource = null;
+
     public static SellerDao createSellerDao(){
-        return new SellerDaoJDBC(DB.getConnection());
+        RoutingDataSource dataSource = DB.getRoutingDataSource();
+        SellerDao dao = new SellerDaoJDBC(dataSource,
+                getDepartmentCache(),
+                getSalarySummaryCache(),
+                DB.getIntProperty("dao.batchSize", 1000),
+                DB.getIntProperty("dao.fetchSize", 500),
+                getSellerChangeLog());
+        if (dataSource.hasReplicas()){
+            dao = ReadRouting.route(SellerDao.class, dao, dataSource);
+        }
+        return metricsEnabled() ? DaoMetrics.instrument(SellerDao.class, dao) : dao;
     }
 
     public static DepartmentDao createDepartmentDao(){
-        return new DepartmentDaoJDBC(DB.getConnection());
+        RoutingDataSource dataSource = DB.getRoutingDataSource();
+        DepartmentDao dao = new DepartmentDaoJDBC(dataSource,
+                getDepartmentCache(),
+                DB.getIntProperty("dao.batchSize", 1000));
+        if (dataSource.hasReplicas()){
+            dao = ReadRouting.route(DepartmentDao.class, dao, dataSource);
+        }
+        return metricsEnabled() ? DaoMetrics.instrument(DepartmentDao.class, dao) : dao;
+    }
+
+    public static synchronized DepartmentCache getDepartmentCache(){
+        if (departmentCache == null){
+            departmentCache = new DepartmentCache(DB.getIntProperty("cache.departmentSize", 1000));
+        }
+        return departmentCache;
+    }
+
+    public static synchronized SalarySummaryCache getSalarySummaryCache(){
+        if (salarySummaryCache == null){
+            salarySummaryCache = new SalarySummaryCache(DB.getIntProperty("cache.salarySummaryTtlMillis", 60000));
+        }
+        return salarySummaryCache;
+    }
+
+    public static boolean isSellerChangeLogEnabled(){
+        return getSellerChangeLog() != null;
+    }
+
+    public static synchronized SellerChangeLog getSellerChangeLog(){
+        if (!DB.getBooleanProperty("changeLog.enabled", false)){
+            return null;
+        }
+        DataSource dataSource = DB.getDataSource();
+        if (changeLogDataSource != dataSource){
+            Connection conn = DB.getConnection();
+            try {
+                if (DB.getBooleanProperty("changeLog.createTable", false)){
+                    SellerChangeLog.createTable(conn);
+                }
+                if (SellerChangeLog.tableExists(conn)){
+                    sellerChangeLog = new SellerChangeLog(DB.getIntProperty("dao.batchSize", 1000));
+                }else {
+                    System.err.println("Seller change log disabled: table seller_change is missing, "
+                            + "run sql/seller_change.sql or set changeLog.createTable=true");
+                    sellerChangeLog = null;
+                }
+            } catch (SQLException e) {
+                throw new DbException(e.getMessage());
+            } finally {
+                DB.closeConnection(conn);
+            }
+            changeLogDataSource = dataSource;
+        }
+        return sellerChangeLog;
+    }
+
+    private static boolean metricsEnabled(){
+        return DB.getBooleanProperty("metrics.enabled", true);
     }
 }
@@ -2,13 +2,18 @@ package model.dao;
 
 import model.entities.Department;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface DepartmentDao {
 
     void insert(Department department);
+    void insertAll(Collection<Department> departments);
     void update(Department department);
+    void updateAll(Collection<Department> departments);
     void deleteById(Integer id);
+    void deleteAllById(Collection<Integer> ids);
     Department findById(Integer id);
     List<Department> findAll();
+    List<Department> findAll(SortSpec sort);
 }
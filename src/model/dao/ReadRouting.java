@@ -0,0 +1,64 @@
+package model.dao;
+
+import db.RoutingDataSource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+class ReadRouting {
+
+    private static final String[] READ_PREFIXES = {"find", "stream", "count", "search", "summarize"};
+    private static final String[] WRITE_PREFIXES = {"insert", "update", "delete"};
+
+    static <T> T route(Class<T> daoInterface, T target, RoutingDataSource routing){
+        InvocationHandler handler = new RoutingHandler(target, routing);
+        return daoInterface.cast(Proxy.newProxyInstance(
+                daoInterface.getClassLoader(), new Class<?>[]{daoInterface}, handler));
+    }
+
+    private static boolean startsWithAny(String name, String[] prefixes){
+        for (String prefix : prefixes){
+            if (name.startsWith(prefix)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class RoutingHandler implements InvocationHandler {
+
+        private final Object target;
+        private final RoutingDataSource routing;
+
+        private RoutingHandler(Object target, RoutingDataSource routing){
+            this.target = target;
+            this.routing = routing;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (startsWithAny(name, READ_PREFIXES)){
+                boolean previous = routing.setReadIntent(true);
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                } finally {
+                    routing.setReadIntent(previous);
+                }
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (startsWithAny(name, WRITE_PREFIXES)){
+                    routing.markWrite();
+                }
+            }
+        }
+    }
+}
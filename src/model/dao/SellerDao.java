@@ -1,16 +1,40 @@
 package model.dao;
 
 import model.entities.Department;
+import model.entities.DepartmentSalarySummary;
 import model.entities.Seller;
+import model.entities.SellerChange;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 public interface SellerDao {
 
     void insert(Seller seller);
+    void insertAll(Collection<Seller> sellers);
     void update(Seller seller);
+    boolean update(Seller seller, Seller original);
+    int updateAll(List<Seller> sellers, List<Seller> originals);
     void deleteById(Integer id);
+    void deleteAllById(Collection<Integer> ids);
     Seller findById(Integer id);
     List<Seller> findAll();
     List<Seller> findByDepartment(Department department);
+    Stream<Seller> streamAll();
+    Stream<Seller> streamByDepartment(Department department);
+    Stream<Seller> streamSnapshot(LongConsumer onCount);
+    List<Seller> findPage(Integer afterKey, int limit);
+    List<Seller> findPage(Seller after, SortSpec sort, int limit);
+    Integer findKeyAt(Integer afterKey, int offset, boolean ascending);
+    Seller findAt(Seller after, int offset, SortSpec sort);
+    int count();
+    List<Seller> search(String text, SortSpec sort, int limit);
+    List<DepartmentSalarySummary> summarizeSalaryByDepartment();
+    List<Seller> findByIds(Collection<Integer> ids);
+    List<SellerChange> findChangesSince(long sequence, int limit);
+    long findLatestChangeSequence();
+    int purgeChangesBefore(Date cutoff);
 }
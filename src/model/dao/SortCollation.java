@@ -0,0 +1,38 @@
+package model.dao;
+
+import db.DB;
+
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.Locale;
+
+public class SortCollation {
+
+    private static final String DEFAULT_COLLATION = "utf8mb4_0900_ai_ci";
+
+    private SortCollation(){
+    }
+
+    public static Comparator<String> configured(){
+        return forCollation(DB.getProperties().getProperty("db.collation", DEFAULT_COLLATION));
+    }
+
+    public static Comparator<String> forCollation(String collation){
+        String name = collation.toLowerCase(Locale.ROOT);
+        if (name.endsWith("_bin") || name.equals("binary")){
+            return Comparator.naturalOrder();
+        }
+        String[] parts = name.split("_");
+        Locale locale = parts.length > 2 && parts[1].length() == 2 ? new Locale(parts[1]) : Locale.ROOT;
+        Collator collator = Collator.getInstance(locale);
+        collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+        if (name.endsWith("_as_ci")){
+            collator.setStrength(Collator.SECONDARY);
+        }else if (name.endsWith("_ci")){
+            collator.setStrength(Collator.PRIMARY);
+        }else {
+            collator.setStrength(Collator.TERTIARY);
+        }
+        return collator::compare;
+    }
+}
@@ -0,0 +1,52 @@
+package model.dao;
+
+import java.util.Objects;
+
+public class SortSpec {
+
+    private final String property;
+    private final boolean ascending;
+
+    public SortSpec(String property, boolean ascending){
+        this.property = Objects.requireNonNull(property);
+        this.ascending = ascending;
+    }
+
+    public static SortSpec ascending(String property){
+        return new SortSpec(property, true);
+    }
+
+    public static SortSpec descending(String property){
+        return new SortSpec(property, false);
+    }
+
+    public SortSpec reversed(){
+        return new SortSpec(property, !ascending);
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SortSpec sortSpec = (SortSpec) o;
+        return ascending == sortSpec.ascending && property.equals(sortSpec.property);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(property, ascending);
+    }
+
+    @Override
+    public String toString() {
+        return property + (ascending ? " asc" : " desc");
+    }
+}
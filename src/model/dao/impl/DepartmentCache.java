@@ -0,0 +1,113 @@
+package model.dao.impl;
+
+import model.entities.Department;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+public class DepartmentCache {
+
+    private final int maxSize;
+    private final Map<Integer, Department> map;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public DepartmentCache(int maxSize){
+        if (maxSize < 1){
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Department> eldest) {
+                if (size() > DepartmentCache.this.maxSize){
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized Department get(Integer id){
+        Department dep = map.get(id);
+        if (dep == null){
+            misses++;
+        }else {
+            hits++;
+        }
+        return dep;
+    }
+
+    public synchronized Department resolve(Integer id, String name){
+        Department dep = map.get(id);
+        if (dep == null){
+            misses++;
+            dep = new Department(id, name);
+            map.put(id, dep);
+        }else {
+            hits++;
+            if (name != null && !name.equals(dep.getName())){
+                dep = new Department(id, name);
+                map.put(id, dep);
+            }
+        }
+        return dep;
+    }
+
+    public synchronized Department put(Department department){
+        Department dep = map.get(department.getId());
+        if (dep == null || !Objects.equals(dep.getName(), department.getName())){
+            dep = new Department(department.getId(), department.getName());
+            map.put(department.getId(), dep);
+        }
+        return dep;
+    }
+
+    public synchronized void evict(Integer id){
+        map.remove(id);
+    }
+
+    public synchronized void clear(){
+        map.clear();
+    }
+
+    public synchronized int size(){
+        return map.size();
+    }
+
+    public int getMaxSize(){
+        return maxSize;
+    }
+
+    public synchronized long getHitCount(){
+        return hits;
+    }
+
+    public synchronized long getMissCount(){
+        return misses;
+    }
+
+    public synchronized long getEvictionCount(){
+        return evictions;
+    }
+
+    public synchronized double getHitRate(){
+        long total = hits + misses;
+        return total == 0 ? 0.0 : hits / (double) total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DepartmentCache{" +
+                "size=" + map.size() +
+                ", maxSize=" + maxSize +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                '}';
+    }
+}
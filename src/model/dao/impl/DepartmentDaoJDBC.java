@@ -3,33 +3,67 @@ package model.dao.impl;
 import db.DB;
 import db.DbException;
 import db.DbIntegrityException;
+import db.TransactionalDataSource;
 import model.dao.DepartmentDao;
+import model.dao.SortSpec;
 import model.entities.Department;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 public class DepartmentDaoJDBC implements DepartmentDao {
 
-    private Connection conn;
+    private static final String INSERT_SQL =
+            "insert into department " +
+                    "(Name) " +
+                    "values " +
+                    "(?)";
 
-    public DepartmentDaoJDBC(Connection conn){
-        this.conn = conn;
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "Id",
+            "name", "Name");
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int DEFAULT_CACHE_SIZE = 1000;
+
+    private final DataSource dataSource;
+    private final TransactionalDataSource transactions;
+    private final DepartmentCache departmentCache;
+    private final int batchSize;
+
+    public DepartmentDaoJDBC(DataSource dataSource){
+        this(dataSource, new DepartmentCache(DEFAULT_CACHE_SIZE), DEFAULT_BATCH_SIZE);
+    }
+
+    public DepartmentDaoJDBC(DataSource dataSource, DepartmentCache departmentCache, int batchSize){
+        if (batchSize < 1){
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.dataSource = dataSource;
+        this.transactions = TransactionalDataSource.of(dataSource);
+        this.departmentCache = departmentCache;
+        this.batchSize = batchSize;
+    }
+
+    private void afterCommit(Runnable action){
+        if (transactions == null){
+            action.run();
+        }else {
+            transactions.afterCommit(action);
+        }
     }
 
     @Override
     public void insert(Department department) {
+        Connection conn = null;
         PreparedStatement ps = null;
         try {
-            ps = conn.prepareStatement(
-                    "insert into department " +
-                            "(Name) " +
-                            "values " +
-                            "(?)",
-                    Statement.RETURN_GENERATED_KEYS);
+            conn = dataSource.getConnection();
+            ps = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
 
             ps.setString(1, department.getName());
 
@@ -40,6 +74,7 @@ public class DepartmentDaoJDBC implements DepartmentDao {
                 if (rs.next()){
                     int id = rs.getInt(1);
                     department.setId(id);
+                    afterCommit(() -> departmentCache.put(department));
                 }
                 DB.closeResultSet(rs);
             }else {
@@ -49,14 +84,91 @@ public class DepartmentDaoJDBC implements DepartmentDao {
             throw new DbException(e.getMessage());
         }finally {
             DB.closeStatement(ps);
+            DB.closeConnection(conn);
+        }
+
+    }
+
+    @Override
+    public void insertAll(Collection<Department> departments) {
+        if (departments.isEmpty()){
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement ps = null;
+        boolean ownTransaction = false;
+        List<Department> assigned = new ArrayList<>(departments.size());
+        try {
+            conn = dataSource.getConnection();
+            ownTransaction = conn.getAutoCommit();
+            if (ownTransaction){
+                conn.setAutoCommit(false);
+            }else if (transactions != null){
+                transactions.afterRollback(() -> clearIds(assigned));
+            }
+            ps = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+
+            List<Department> chunk = new ArrayList<>(Math.min(batchSize, departments.size()));
+            for (Department department : departments){
+                ps.setString(1, department.getName());
+                ps.addBatch();
+                chunk.add(department);
+                if (chunk.size() == batchSize){
+                    executeInsertBatch(ps, chunk, assigned);
+                }
+            }
+            if (!chunk.isEmpty()){
+                executeInsertBatch(ps, chunk, assigned);
+            }
+            if (ownTransaction){
+                conn.commit();
+                conn.setAutoCommit(true);
+            }
+            afterCommit(() -> {
+                for (Department department : departments){
+                    departmentCache.put(department);
+                }
+            });
+        } catch (SQLException e) {
+            if (ownTransaction){
+                clearIds(assigned);
+                DB.rollback(conn);
+            }
+            throw new DbException(e.getMessage());
+        } catch (RuntimeException e) {
+            if (ownTransaction){
+                clearIds(assigned);
+            }
+            throw e;
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeConnection(conn);
         }
+    }
 
+    private void executeInsertBatch(PreparedStatement ps, List<Department> chunk, List<Department> assigned)
+            throws SQLException {
+        ps.executeBatch();
+        ResultSet rs = ps.getGeneratedKeys();
+        int i = 0;
+        while (rs.next() && i < chunk.size()){
+            Department department = chunk.get(i++);
+            department.setId(rs.getInt(1));
+            assigned.add(department);
+        }
+        DB.closeResultSet(rs);
+        if (i != chunk.size()){
+            throw new SQLException("Expected " + chunk.size() + " generated keys but got " + i);
+        }
+        chunk.clear();
     }
 
     @Override
     public void update(Department department) {
+        Connection conn = null;
         PreparedStatement ps = null;
         try {
+            conn = dataSource.getConnection();
             ps = conn.prepareStatement(
                     "update department " +
                             "set Name = ? " +
@@ -67,40 +179,126 @@ public class DepartmentDaoJDBC implements DepartmentDao {
             ps.setInt(2, department.getId());
 
             ps.executeUpdate();
+            afterCommit(() -> departmentCache.put(department));
         } catch (SQLException e) {
             throw new DbException(e.getMessage());
         }finally {
             DB.closeStatement(ps);
+            DB.closeConnection(conn);
         }
 
     }
 
     @Override
     public void deleteById(Integer id) {
+        Connection conn = null;
         PreparedStatement ps = null;
         try {
+            conn = dataSource.getConnection();
             ps = conn.prepareStatement("delete from department where Id = ?");
             ps.setInt(1, id);
             ps.executeUpdate();
+            afterCommit(() -> departmentCache.evict(id));
 
         } catch (SQLException e) {
             throw new DbIntegrityException(e.getMessage());
         }finally {
             DB.closeStatement(ps);
+            DB.closeConnection(conn);
+        }
+
+    }
+
+    @Override
+    public void updateAll(Collection<Department> departments) {
+        executeBatch("update department set Name = ? where Id = ?", departments, (ps, department) -> {
+            ps.setString(1, department.getName());
+            ps.setInt(2, department.getId());
+        }, false);
+        afterCommit(() -> {
+            for (Department department : departments){
+                departmentCache.put(department);
+            }
+        });
+    }
+
+    @Override
+    public void deleteAllById(Collection<Integer> ids) {
+        executeBatch("delete from department where Id = ?", ids, (ps, id) -> ps.setInt(1, id), true);
+        afterCommit(() -> {
+            for (Integer id : ids){
+                departmentCache.evict(id);
+            }
+        });
+    }
+
+    private static void clearIds(List<Department> assigned){
+        for (Department department : assigned){
+            department.setId(null);
         }
+    }
 
+    private interface Binder<T> {
+        void bind(PreparedStatement ps, T item) throws SQLException;
+    }
+
+    private <T> void executeBatch(String sql, Collection<T> items, Binder<T> binder, boolean integrity) {
+        if (items.isEmpty()){
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement ps = null;
+        boolean ownTransaction = false;
+        try {
+            conn = dataSource.getConnection();
+            ownTransaction = conn.getAutoCommit();
+            if (ownTransaction){
+                conn.setAutoCommit(false);
+            }
+            ps = conn.prepareStatement(sql);
+            int pending = 0;
+            for (T item : items){
+                binder.bind(ps, item);
+                ps.addBatch();
+                if (++pending == batchSize){
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0){
+                ps.executeBatch();
+            }
+            if (ownTransaction){
+                conn.commit();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            if (ownTransaction){
+                DB.rollback(conn);
+            }
+            throw integrity ? new DbIntegrityException(e.getMessage()) : new DbException(e.getMessage());
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeConnection(conn);
+        }
     }
 
     @Override
     public Department findById(Integer id) {
+        Department cached = departmentCache.get(id);
+        if (cached != null){
+            return cached;
+        }
+        Connection conn = null;
         PreparedStatement ps = null;
         ResultSet rs = null;
         try {
+            conn = dataSource.getConnection();
             ps = conn.prepareStatement("select * from department where Id = ?");
             ps.setInt(1, id);
             rs = ps.executeQuery();
             if (rs.next()){
-                return instantiateDepartment(rs);
+                return new DepartmentRowMapper(rs, departmentCache).map(rs);
             }
             return null;
         } catch (SQLException e) {
@@ -108,29 +306,60 @@ public class DepartmentDaoJDBC implements DepartmentDao {
         }finally {
             DB.closeStatement(ps);
             DB.closeResultSet(rs);
+            DB.closeConnection(conn);
         }
     }
 
-    private Department instantiateDepartment(ResultSet rs) throws SQLException {
-        Department dep =  new Department();
-        dep.setId(rs.getInt("Id"));
-        dep.setName(rs.getString("Name"));
-        return dep;
-    }
-
     @Override
     public List<Department> findAll() {
+        Connection conn = null;
         PreparedStatement ps = null;
         ResultSet rs = null;
         try {
+            conn = dataSource.getConnection();
             ps = conn.prepareStatement("select * from department");
             rs = ps.executeQuery();
 
             List<Department> list = new ArrayList<>();
+            DepartmentRowMapper mapper = new DepartmentRowMapper(rs, departmentCache);
+
+            while (rs.next()){
+                list.add(mapper.map(rs));
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeResultSet(rs);
+            DB.closeConnection(conn);
+        }
+    }
+
+    @Override
+    public List<Department> findAll(SortSpec sort) {
+        String column = SORT_COLUMNS.get(sort.getProperty());
+        if (column == null){
+            throw new IllegalArgumentException("Departments cannot be sorted by " + sort.getProperty());
+        }
+        String direction = sort.isAscending() ? " asc" : " desc";
+        String orderBy = column.equals("Id")
+                ? "order by Id" + direction
+                : "order by " + column + direction + ", Id" + direction;
+
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            ps = conn.prepareStatement("select * from department " + orderBy);
+            rs = ps.executeQuery();
+
+            List<Department> list = new ArrayList<>();
+            DepartmentRowMapper mapper = new DepartmentRowMapper(rs, departmentCache);
 
             while (rs.next()){
-                Department dep = instantiateDepartment(rs);
-                list.add(dep);
+                list.add(mapper.map(rs));
             }
             return list;
         } catch (SQLException e) {
@@ -138,6 +367,7 @@ public class DepartmentDaoJDBC implements DepartmentDao {
         }finally {
             DB.closeStatement(ps);
             DB.closeResultSet(rs);
+            DB.closeConnection(conn);
         }
     }
 }
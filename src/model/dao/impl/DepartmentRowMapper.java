@@ -0,0 +1,24 @@
+package model.dao.impl;
+
+import model.entities.Department;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+class DepartmentRowMapper implements RowMapper<Department> {
+
+    private final DepartmentCache departmentCache;
+    private final int idIndex;
+    private final int nameIndex;
+
+    DepartmentRowMapper(ResultSet rs, DepartmentCache departmentCache) throws SQLException {
+        this.departmentCache = departmentCache;
+        this.idIndex = rs.findColumn("Id");
+        this.nameIndex = rs.findColumn("Name");
+    }
+
+    @Override
+    public Department map(ResultSet rs) throws SQLException {
+        return departmentCache.resolve(rs.getInt(idIndex), rs.getString(nameIndex));
+    }
+}
@@ -0,0 +1,66 @@
+package model.dao.impl;
+
+import model.entities.DepartmentSalarySummary;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class SalarySummaryCache {
+
+    private final long ttlMillis;
+
+    private List<DepartmentSalarySummary> summary = null;
+    private long loadedAt = 0;
+    private long version = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long invalidations = 0;
+
+    public SalarySummaryCache(long ttlMillis){
+        this.ttlMillis = ttlMillis;
+    }
+
+    public List<DepartmentSalarySummary> get(Supplier<List<DepartmentSalarySummary>> loader){
+        long loadVersion;
+        synchronized (this){
+            if (summary != null && (ttlMillis <= 0 || System.currentTimeMillis() - loadedAt < ttlMillis)){
+                hits++;
+                return summary;
+            }
+            misses++;
+            loadVersion = version;
+        }
+
+        List<DepartmentSalarySummary> loaded = Collections.unmodifiableList(loader.get());
+
+        synchronized (this){
+            if (version == loadVersion){
+                summary = loaded;
+                loadedAt = System.currentTimeMillis();
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized void invalidate(){
+        version++;
+        if (summary != null){
+            invalidations++;
+            summary = null;
+        }
+    }
+
+    public synchronized long getHits(){
+        return hits;
+    }
+
+    public synchronized long getMisses(){
+        return misses;
+    }
+
+    public synchronized long getInvalidations(){
+        return invalidations;
+    }
+}
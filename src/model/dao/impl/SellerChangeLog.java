@@ -0,0 +1,104 @@
+package model.dao.impl;
+
+import db.DB;
+import model.entities.SellerChange;
+
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+
+public class SellerChangeLog {
+
+    public static final long CLIENT_ID = new SecureRandom().nextLong();
+
+    private static final String INSERT_SQL =
+            "insert into seller_change " +
+                    "(SellerId, Op, ClientId) " +
+                    "values " +
+                    "(?,?,?)";
+
+    private final int batchSize;
+
+    public SellerChangeLog(int batchSize){
+        if (batchSize < 1){
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public static void createTable(Connection conn) throws SQLException {
+        Statement st = null;
+        try {
+            st = conn.createStatement();
+            st.execute("create table if not exists seller_change (" +
+                    "Seq bigint not null auto_increment primary key, " +
+                    "SellerId int not null, " +
+                    "Op char(1) not null, " +
+                    "ClientId bigint not null, " +
+                    "ChangedAt timestamp not null default current_timestamp)");
+        } finally {
+            DB.closeStatement(st);
+        }
+    }
+
+    public static boolean tableExists(Connection conn) throws SQLException {
+        Statement st = null;
+        try {
+            st = conn.createStatement();
+            st.executeQuery("select 1 from seller_change where 1 = 0").close();
+            return true;
+        } catch (SQLException e) {
+            if (e.getSQLState() != null && e.getSQLState().startsWith("42")){
+                return false;
+            }
+            throw e;
+        } finally {
+            DB.closeStatement(st);
+        }
+    }
+
+    public void record(Connection conn, SellerChange.Type type, Integer sellerId) throws SQLException {
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(INSERT_SQL);
+            setParameters(ps, type, sellerId);
+            ps.executeUpdate();
+        } finally {
+            DB.closeStatement(ps);
+        }
+    }
+
+    public void record(Connection conn, SellerChange.Type type, Collection<Integer> sellerIds) throws SQLException {
+        if (sellerIds.isEmpty()){
+            return;
+        }
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(INSERT_SQL);
+            int pending = 0;
+            for (Integer sellerId : sellerIds){
+                setParameters(ps, type, sellerId);
+                ps.addBatch();
+                if (++pending == batchSize){
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0){
+                ps.executeBatch();
+            }
+        } finally {
+            DB.closeStatement(ps);
+        }
+    }
+
+    private static void setParameters(PreparedStatement ps, SellerChange.Type type, Integer sellerId)
+            throws SQLException {
+        ps.setInt(1, sellerId);
+        ps.setString(2, String.valueOf(type.getCode()));
+        ps.setLong(3, CLIENT_ID);
+    }
+}
@@ -2,40 +2,120 @@ package model.dao.impl;
 
 import db.DB;
 import db.DbException;
+import db.TransactionalDataSource;
 import model.dao.SellerDao;
+import model.dao.SortSpec;
 import model.entities.Department;
+import model.entities.DepartmentSalarySummary;
 import model.entities.Seller;
+import model.entities.SellerChange;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class SellerDaoJDBC implements SellerDao {
 
-    private final Connection conn;
+    private static final String INSERT_SQL =
+            "insert into seller " +
+                    "(Name, Email, BirthDate, BaseSalary, DepartmentId) " +
+                    "values " +
+                    "(?,?,?,?,?)";
 
-    public SellerDaoJDBC(Connection conn){
-        this.conn = conn;
+    private static final String SELECT_SQL =
+            "select seller.*, department.Name as DepName " +
+                    "from seller " +
+                    "inner join department " +
+                    "on seller.DepartmentId = department.Id ";
+
+    private static final String[] UPDATE_COLUMNS = {"Name", "Email", "BirthDate", "BaseSalary", "DepartmentId"};
+    private static final int NAME = 1;
+    private static final int EMAIL = 1 << 1;
+    private static final int BIRTH_DATE = 1 << 2;
+    private static final int BASE_SALARY = 1 << 3;
+    private static final int DEPARTMENT = 1 << 4;
+    private static final int ALL_COLUMNS = (1 << UPDATE_COLUMNS.length) - 1;
+    private static final Map<Integer, String> UPDATE_SQL = new ConcurrentHashMap<>();
+
+    private static final Map<String, SortColumn> SORT_COLUMNS = new HashMap<>();
+
+    static {
+        SORT_COLUMNS.put("id", new SortColumn("seller.Id", Seller::getId));
+        SORT_COLUMNS.put("name", new SortColumn("seller.Name", Seller::getName));
+        SORT_COLUMNS.put("email", new SortColumn("seller.Email", Seller::getEmail));
+        SORT_COLUMNS.put("birthDate", new SortColumn("seller.BirthDate",
+                seller -> seller.getBirthDate() == null ? null : new Timestamp(seller.getBirthDate().getTime())));
+        SORT_COLUMNS.put("baseSalary", new SortColumn("coalesce(seller.BaseSalary, 0)",
+                seller -> seller.getBaseSalary() == null ? 0.0 : seller.getBaseSalary()));
+        SORT_COLUMNS.put("department", new SortColumn("department.Name",
+                seller -> seller.getDepartment().getName()));
+    }
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int DEFAULT_FETCH_SIZE = 500;
+    private static final int DEFAULT_CACHE_SIZE = 1000;
+    private static final long DEFAULT_SUMMARY_TTL_MILLIS = 60000;
+
+    private final DataSource dataSource;
+    private final TransactionalDataSource transactions;
+    private final DepartmentCache departmentCache;
+    private final SalarySummaryCache salarySummaryCache;
+    private final int batchSize;
+    private final int fetchSize;
+    private final SellerChangeLog changeLog;
+
+    public SellerDaoJDBC(DataSource dataSource){
+        this(dataSource, new DepartmentCache(DEFAULT_CACHE_SIZE), new SalarySummaryCache(DEFAULT_SUMMARY_TTL_MILLIS),
+                DEFAULT_BATCH_SIZE, DEFAULT_FETCH_SIZE);
+    }
+
+    public SellerDaoJDBC(DataSource dataSource, DepartmentCache departmentCache, SalarySummaryCache salarySummaryCache,
+                         int batchSize, int fetchSize){
+        this(dataSource, departmentCache, salarySummaryCache, batchSize, fetchSize, null);
+    }
+
+    public SellerDaoJDBC(DataSource dataSource, DepartmentCache departmentCache, SalarySummaryCache salarySummaryCache,
+                         int batchSize, int fetchSize, SellerChangeLog changeLog){
+        if (batchSize < 1){
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.dataSource = dataSource;
+        this.transactions = TransactionalDataSource.of(dataSource);
+        this.departmentCache = departmentCache;
+        this.salarySummaryCache = salarySummaryCache;
+        this.batchSize = batchSize;
+        this.fetchSize = fetchSize;
+        this.changeLog = changeLog;
     }
 
     @Override
     public void insert(Seller seller) {
+        Connection conn = null;
         PreparedStatement ps = null;
+        boolean ownTransaction = false;
         try {
-            ps = conn.prepareStatement(
-                    "insert into seller " +
-                            "(Name, Email, BirthDate, BaseSalary, DepartmentId) " +
-                            "values " +
-                            "(?,?,?,?,?)",
-            Statement.RETURN_GENERATED_KEYS);
-
-            ps.setString(1, seller.getName());
-            ps.setString(2, seller.getEmail());
-            ps.setDate(3, new Date(seller.getBirthDate().getTime()));
-            ps.setDouble(4, seller.getBaseSalary());
-            ps.setInt(5, seller.getDepartment().getId());
+            conn = dataSource.getConnection();
+            ownTransaction = beginLoggedChange(conn);
+            if (!ownTransaction && !conn.getAutoCommit()){
+                clearIdsOnRollback(List.of(seller));
+            }
+            ps = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+
+            setInsertParameters(ps, seller);
 
             int rowsAffected = ps.executeUpdate();
 
@@ -49,60 +129,394 @@ public class SellerDaoJDBC implements SellerDao {
             }else {
                 throw new DbException("Unexpected error! No rows affected");
             }
+            if (changeLog != null){
+                changeLog.record(conn, SellerChange.Type.INSERTED, seller.getId());
+            }
+            endLoggedChange(conn, ownTransaction);
+        } catch (SQLException e) {
+            if (ownTransaction){
+                seller.setId(null);
+                DB.rollback(conn);
+            }
+            throw new DbException(e.getMessage());
+        }finally {
+            salarySummaryCache.invalidate();
+            DB.closeStatement(ps);
+            DB.closeConnection(conn);
+        }
+    }
+
+    @Override
+    public void insertAll(Collection<Seller> sellers) {
+        if (sellers.isEmpty()){
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement ps = null;
+        boolean ownTransaction = false;
+        List<Seller> assigned = new ArrayList<>(sellers.size());
+        try {
+            conn = dataSource.getConnection();
+            ownTransaction = conn.getAutoCommit();
+            if (ownTransaction){
+                conn.setAutoCommit(false);
+            }else {
+                clearIdsOnRollback(assigned);
+            }
+            ps = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+
+            List<Seller> chunk = new ArrayList<>(Math.min(batchSize, sellers.size()));
+            for (Seller seller : sellers){
+                setInsertParameters(ps, seller);
+                ps.addBatch();
+                chunk.add(seller);
+                if (chunk.size() == batchSize){
+                    executeInsertBatch(ps, chunk, assigned);
+                }
+            }
+            if (!chunk.isEmpty()){
+                executeInsertBatch(ps, chunk, assigned);
+            }
+            if (changeLog != null){
+                changeLog.record(conn, SellerChange.Type.INSERTED, ids(sellers));
+            }
+            if (ownTransaction){
+                conn.commit();
+                conn.setAutoCommit(true);
+            }
         } catch (SQLException e) {
+            if (ownTransaction){
+                clearIds(assigned);
+                DB.rollback(conn);
+            }
             throw new DbException(e.getMessage());
+        } catch (RuntimeException e) {
+            if (ownTransaction){
+                clearIds(assigned);
+            }
+            throw e;
         }finally {
+            salarySummaryCache.invalidate();
             DB.closeStatement(ps);
+            DB.closeConnection(conn);
+        }
+    }
+
+    private void executeInsertBatch(PreparedStatement ps, List<Seller> chunk, List<Seller> assigned) throws SQLException {
+        ps.executeBatch();
+        ResultSet rs = ps.getGeneratedKeys();
+        int i = 0;
+        while (rs.next() && i < chunk.size()){
+            Seller seller = chunk.get(i++);
+            seller.setId(rs.getInt(1));
+            assigned.add(seller);
         }
+        DB.closeResultSet(rs);
+        if (i != chunk.size()){
+            throw new SQLException("Expected " + chunk.size() + " generated keys but got " + i);
+        }
+        chunk.clear();
+    }
+
+    private void setInsertParameters(PreparedStatement ps, Seller seller) throws SQLException {
+        ps.setString(1, seller.getName());
+        ps.setString(2, seller.getEmail());
+        ps.setDate(3, new Date(seller.getBirthDate().getTime()));
+        ps.setDouble(4, seller.getBaseSalary());
+        ps.setInt(5, seller.getDepartment().getId());
     }
 
     @Override
     public void update(Seller seller) {
+        update(seller, null);
+    }
+
+    @Override
+    public boolean update(Seller seller, Seller original) {
+        int changed = changedColumns(seller, original);
+        if (changed == 0){
+            return false;
+        }
+        Connection conn = null;
         PreparedStatement ps = null;
+        boolean ownTransaction = false;
         try {
-            ps = conn.prepareStatement(
-                    "update seller " +
-                            "set Name = ?, Email = ?, BirthDate = ?, BaseSalary = ?, DepartmentId = ? " +
-                            "where Id = ?"
-                    );
+            conn = dataSource.getConnection();
+            ownTransaction = beginLoggedChange(conn);
+            ps = conn.prepareStatement(updateSql(changed));
 
-            ps.setString(1, seller.getName());
-            ps.setString(2, seller.getEmail());
-            ps.setDate(3, new Date(seller.getBirthDate().getTime()));
-            ps.setDouble(4, seller.getBaseSalary());
-            ps.setInt(5, seller.getDepartment().getId());
-            ps.setInt(6, seller.getId());
+            setUpdateParameters(ps, seller, changed);
 
-            ps.executeUpdate();
+            if (ps.executeUpdate() > 0 && changeLog != null){
+                changeLog.record(conn, SellerChange.Type.UPDATED, seller.getId());
+            }
+            endLoggedChange(conn, ownTransaction);
+            return true;
         } catch (SQLException e) {
+            if (ownTransaction){
+                DB.rollback(conn);
+            }
             throw new DbException(e.getMessage());
         }finally {
+            if ((changed & (BASE_SALARY | DEPARTMENT)) != 0){
+                salarySummaryCache.invalidate();
+            }
             DB.closeStatement(ps);
+            DB.closeConnection(conn);
         }
+    }
+
+    private static void setUpdateParameters(PreparedStatement ps, Seller seller, int changed) throws SQLException {
+        int index = 1;
+        if ((changed & NAME) != 0){
+            ps.setString(index++, seller.getName());
+        }
+        if ((changed & EMAIL) != 0){
+            ps.setString(index++, seller.getEmail());
+        }
+        if ((changed & BIRTH_DATE) != 0){
+            ps.setDate(index++, new Date(seller.getBirthDate().getTime()));
+        }
+        if ((changed & BASE_SALARY) != 0){
+            ps.setDouble(index++, seller.getBaseSalary());
+        }
+        if ((changed & DEPARTMENT) != 0){
+            ps.setInt(index++, seller.getDepartment().getId());
+        }
+        ps.setInt(index, seller.getId());
+    }
+
+    private static int changedColumns(Seller seller, Seller original){
+        if (original == null){
+            return ALL_COLUMNS;
+        }
+        int changed = 0;
+        if (!Objects.equals(seller.getName(), original.getName())){
+            changed |= NAME;
+        }
+        if (!Objects.equals(seller.getEmail(), original.getEmail())){
+            changed |= EMAIL;
+        }
+        if (seller.getBirthDate() == null || original.getBirthDate() == null
+                || seller.getBirthDate().getTime() != original.getBirthDate().getTime()){
+            changed |= BIRTH_DATE;
+        }
+        if (!Objects.equals(seller.getBaseSalary(), original.getBaseSalary())){
+            changed |= BASE_SALARY;
+        }
+        if (seller.getDepartment() == null || original.getDepartment() == null
+                || !Objects.equals(seller.getDepartment().getId(), original.getDepartment().getId())){
+            changed |= DEPARTMENT;
+        }
+        return changed;
+    }
 
+    private static String updateSql(int changed){
+        return UPDATE_SQL.computeIfAbsent(changed, columns -> {
+            StringBuilder sql = new StringBuilder("update seller set ");
+            String separator = "";
+            for (int i = 0; i < UPDATE_COLUMNS.length; i++){
+                if ((columns & (1 << i)) != 0){
+                    sql.append(separator).append(UPDATE_COLUMNS[i]).append(" = ?");
+                    separator = ", ";
+                }
+            }
+            return sql.append(" where Id = ?").toString();
+        });
+    }
+
+    @Override
+    public int updateAll(List<Seller> sellers, List<Seller> originals) {
+        if (originals != null && originals.size() != sellers.size()){
+            throw new IllegalArgumentException("Expected one original per seller");
+        }
+        Map<Integer, List<Seller>> byColumns = new LinkedHashMap<>();
+        for (int i = 0; i < sellers.size(); i++){
+            Seller seller = sellers.get(i);
+            int changed = changedColumns(seller, originals == null ? null : originals.get(i));
+            if (changed != 0){
+                byColumns.computeIfAbsent(changed, columns -> new ArrayList<>()).add(seller);
+            }
+        }
+        if (byColumns.isEmpty()){
+            return 0;
+        }
+        Connection conn = null;
+        PreparedStatement ps = null;
+        boolean ownTransaction = false;
+        int updated = 0;
+        try {
+            conn = dataSource.getConnection();
+            ownTransaction = conn.getAutoCommit();
+            if (ownTransaction){
+                conn.setAutoCommit(false);
+            }
+            for (Map.Entry<Integer, List<Seller>> entry : byColumns.entrySet()){
+                int changed = entry.getKey();
+                ps = conn.prepareStatement(updateSql(changed));
+                int pending = 0;
+                for (Seller seller : entry.getValue()){
+                    setUpdateParameters(ps, seller, changed);
+                    ps.addBatch();
+                    if (++pending == batchSize){
+                        updated += sum(ps.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0){
+                    updated += sum(ps.executeBatch());
+                }
+                DB.closeStatement(ps);
+                ps = null;
+                if (changeLog != null){
+                    changeLog.record(conn, SellerChange.Type.UPDATED, ids(entry.getValue()));
+                }
+            }
+            if (ownTransaction){
+                conn.commit();
+                conn.setAutoCommit(true);
+            }
+            return updated;
+        } catch (SQLException e) {
+            if (ownTransaction){
+                DB.rollback(conn);
+            }
+            throw new DbException(e.getMessage());
+        }finally {
+            for (int changed : byColumns.keySet()){
+                if ((changed & (BASE_SALARY | DEPARTMENT)) != 0){
+                    salarySummaryCache.invalidate();
+                    break;
+                }
+            }
+            DB.closeStatement(ps);
+            DB.closeConnection(conn);
+        }
+    }
+
+    private boolean beginLoggedChange(Connection conn) throws SQLException {
+        if (changeLog == null || !conn.getAutoCommit()){
+            return false;
+        }
+        conn.setAutoCommit(false);
+        return true;
+    }
+
+    private static void endLoggedChange(Connection conn, boolean ownTransaction) throws SQLException {
+        if (ownTransaction){
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private void clearIdsOnRollback(List<Seller> assigned){
+        if (transactions != null){
+            transactions.afterRollback(() -> clearIds(assigned));
+        }
+    }
+
+    private static void clearIds(List<Seller> assigned){
+        for (Seller seller : assigned){
+            seller.setId(null);
+        }
+    }
+
+    private static List<Integer> ids(Collection<Seller> sellers){
+        List<Integer> ids = new ArrayList<>(sellers.size());
+        for (Seller seller : sellers){
+            ids.add(seller.getId());
+        }
+        return ids;
+    }
+
+    private static int sum(int[] counts){
+        int total = 0;
+        for (int count : counts){
+            total += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return total;
+    }
+
+    @Override
+    public void deleteAllById(Collection<Integer> ids) {
+        if (ids.isEmpty()){
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement ps = null;
+        boolean ownTransaction = false;
+        try {
+            conn = dataSource.getConnection();
+            ownTransaction = conn.getAutoCommit();
+            if (ownTransaction){
+                conn.setAutoCommit(false);
+            }
+            ps = conn.prepareStatement("delete from seller where Id = ?");
+            int pending = 0;
+            for (Integer id : ids){
+                ps.setInt(1, id);
+                ps.addBatch();
+                if (++pending == batchSize){
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0){
+                ps.executeBatch();
+            }
+            if (changeLog != null){
+                changeLog.record(conn, SellerChange.Type.DELETED, ids);
+            }
+            if (ownTransaction){
+                conn.commit();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            if (ownTransaction){
+                DB.rollback(conn);
+            }
+            throw new DbException(e.getMessage());
+        }finally {
+            salarySummaryCache.invalidate();
+            DB.closeStatement(ps);
+            DB.closeConnection(conn);
+        }
     }
 
     @Override
     public void deleteById(Integer id) {
+        Connection conn = null;
         PreparedStatement ps = null;
+        boolean ownTransaction = false;
         try {
+            conn = dataSource.getConnection();
+            ownTransaction = beginLoggedChange(conn);
             ps = conn.prepareStatement("delete from seller where Id = ?");
             ps.setInt(1, id);
-            ps.executeUpdate();
-
+            if (ps.executeUpdate() > 0 && changeLog != null){
+                changeLog.record(conn, SellerChange.Type.DELETED, id);
+            }
+            endLoggedChange(conn, ownTransaction);
         } catch (SQLException e) {
+            if (ownTransaction){
+                DB.rollback(conn);
+            }
             throw new DbException(e.getMessage());
         }finally {
+            salarySummaryCache.invalidate();
             DB.closeStatement(ps);
+            DB.closeConnection(conn);
         }
 
     }
 
     @Override
     public Seller findById(Integer id) {
+        Connection conn = null;
         PreparedStatement ps = null;
         ResultSet rs = null;
         try {
+            conn = dataSource.getConnection();
             ps = conn.prepareStatement(
                     "select seller.*, department.Name as DepName " +
                             "from seller " +
@@ -113,8 +527,7 @@ public class SellerDaoJDBC implements SellerDao {
             ps.setInt(1, id);
             rs = ps.executeQuery();
             if (rs.next()){
-                Department dep = instantiateDepartment(rs);
-                return instantiateSeller(rs, dep);
+                return new SellerRowMapper(rs, departmentCache).map(rs);
             }
             return null;
         } catch (SQLException e) {
@@ -122,32 +535,17 @@ public class SellerDaoJDBC implements SellerDao {
         }finally {
             DB.closeStatement(ps);
             DB.closeResultSet(rs);
+            DB.closeConnection(conn);
         }
     }
 
-    private Seller instantiateSeller(ResultSet rs, Department dep) throws SQLException {
-        Seller seller = new Seller();
-        seller.setId(rs.getInt("Id"));
-        seller.setName(rs.getString("Name"));
-        seller.setEmail(rs.getString("Email"));
-        seller.setBaseSalary(rs.getDouble("BaseSalary"));
-        seller.setBirthDate(new java.util.Date(rs.getTimestamp("BirthDate").getTime()));
-        seller.setDepartment(dep);
-        return seller;
-    }
-
-    private Department instantiateDepartment(ResultSet rs) throws SQLException {
-        Department dep =  new Department();
-        dep.setId(rs.getInt("DepartmentId"));
-        dep.setName(rs.getString("DepName"));
-        return dep;
-    }
-
     @Override
     public List<Seller> findAll() {
+        Connection conn = null;
         PreparedStatement ps = null;
         ResultSet rs = null;
         try {
+            conn = dataSource.getConnection();
             ps = conn.prepareStatement(
                     "select seller.*, department.Name as DepName " +
                             "from seller " +
@@ -157,18 +555,10 @@ public class SellerDaoJDBC implements SellerDao {
             rs = ps.executeQuery();
 
             List<Seller> list = new ArrayList<>();
-            Map<Integer, Department> map = new HashMap<>();
+            SellerRowMapper mapper = new SellerRowMapper(rs, departmentCache);
 
             while (rs.next()){
-                Department dep = map.get(rs.getInt("DepartmentId"));
-
-                if (dep == null) {
-                    dep = instantiateDepartment(rs);
-                    map.put(rs.getInt("DepartmentId"), dep);
-                }
-
-                Seller seller = instantiateSeller(rs, dep);
-                list.add(seller);
+                list.add(mapper.map(rs));
             }
             return list;
         } catch (SQLException e) {
@@ -176,14 +566,17 @@ public class SellerDaoJDBC implements SellerDao {
         }finally {
             DB.closeStatement(ps);
             DB.closeResultSet(rs);
+            DB.closeConnection(conn);
         }
     }
 
     @Override
     public List<Seller> findByDepartment(Department department) {
+        Connection conn = null;
         PreparedStatement ps = null;
         ResultSet rs = null;
         try {
+            conn = dataSource.getConnection();
             ps = conn.prepareStatement(
                     "select seller.*, department.Name as DepName " +
                             "from seller " +
@@ -196,18 +589,369 @@ public class SellerDaoJDBC implements SellerDao {
             rs = ps.executeQuery();
 
             List<Seller> list = new ArrayList<>();
-            Map<Integer, Department> map = new HashMap<>();
+            SellerRowMapper mapper = new SellerRowMapper(rs, departmentCache);
+
+            while (rs.next()){
+                list.add(mapper.map(rs));
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeResultSet(rs);
+            DB.closeConnection(conn);
+        }
+    }
+
+    @Override
+    public Stream<Seller> streamAll() {
+        return stream(SELECT_SQL, null);
+    }
+
+    @Override
+    public Stream<Seller> streamByDepartment(Department department) {
+        return stream(SELECT_SQL + "where DepartmentId = ? order by seller.Name", department.getId());
+    }
+
+    @Override
+    public Stream<Seller> streamSnapshot(LongConsumer onCount) {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        int isolation = Connection.TRANSACTION_REPEATABLE_READ;
+        boolean ownTransaction = false;
+        try {
+            conn = dataSource.getConnection();
+            ownTransaction = conn.getAutoCommit();
+            if (ownTransaction){
+                isolation = conn.getTransactionIsolation();
+                conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                conn.setReadOnly(true);
+                conn.setAutoCommit(false);
+            }
+
+            ps = conn.prepareStatement("select count(*) from seller");
+            rs = ps.executeQuery();
+            rs.next();
+            onCount.accept(rs.getLong(1));
+        } catch (SQLException e) {
+            endSnapshot(conn, isolation, ownTransaction);
+            throw new DbException(e.getMessage());
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeResultSet(rs);
+        }
+
+        final Connection snapshotConn = conn;
+        final int previousIsolation = isolation;
+        final boolean endTransaction = ownTransaction;
+        return stream(conn, SELECT_SQL + "order by seller.Id", null,
+                () -> endSnapshot(snapshotConn, previousIsolation, endTransaction));
+    }
+
+    private static void endSnapshot(Connection conn, int isolation, boolean endTransaction){
+        if (conn == null){
+            return;
+        }
+        if (!endTransaction){
+            DB.closeConnection(conn);
+            return;
+        }
+        try {
+            conn.commit();
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackError) {
+                // the pool rolls back and resets the connection when it is returned
+            }
+        }
+        try {
+            conn.setAutoCommit(true);
+            conn.setReadOnly(false);
+            conn.setTransactionIsolation(isolation);
+        } catch (SQLException e) {
+            // the pool restores autocommit, read-only and isolation when it is returned
+        }finally {
+            DB.closeConnection(conn);
+        }
+    }
+
+    private Stream<Seller> stream(String sql, Integer departmentId) {
+        Connection conn;
+        try {
+            conn = dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+        return stream(conn, sql, departmentId, () -> DB.closeConnection(conn));
+    }
+
+    private Stream<Seller> stream(Connection conn, String sql, Integer departmentId, Runnable release) {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        SellerRowMapper mapper;
+        try {
+            ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            if (departmentId != null){
+                ps.setInt(1, departmentId);
+            }
+            rs = ps.executeQuery();
+            mapper = new SellerRowMapper(rs, departmentCache);
+        } catch (SQLException e) {
+            DB.closeStatement(ps);
+            DB.closeResultSet(rs);
+            release.run();
+            throw new DbException(e.getMessage());
+        }
+
+        final PreparedStatement streamPs = ps;
+        final ResultSet streamRs = rs;
+
+        Spliterator<Seller> spliterator = new Spliterators.AbstractSpliterator<Seller>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Seller> action) {
+                try {
+                    if (!streamRs.next()){
+                        return false;
+                    }
+                    action.accept(mapper.map(streamRs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new DbException(e.getMessage());
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            DB.closeResultSet(streamRs);
+            DB.closeStatement(streamPs);
+            release.run();
+        });
+    }
+
+    @Override
+    public List<Seller> findPage(Integer afterKey, int limit) {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            ps = conn.prepareStatement(
+                    "select seller.*, department.Name as DepName " +
+                            "from seller " +
+                            "inner join department " +
+                            "on seller.DepartmentId = department.Id " +
+                            "where seller.Id > ? " +
+                            "order by seller.Id " +
+                            "limit ?"
+            );
+            ps.setInt(1, afterKey == null ? Integer.MIN_VALUE : afterKey);
+            ps.setInt(2, limit);
+            rs = ps.executeQuery();
+
+            List<Seller> list = new ArrayList<>(limit);
+            SellerRowMapper mapper = new SellerRowMapper(rs, departmentCache);
+
+            while (rs.next()){
+                list.add(mapper.map(rs));
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeResultSet(rs);
+            DB.closeConnection(conn);
+        }
+    }
+
+    @Override
+    public List<Seller> findPage(Seller after, SortSpec sort, int limit) {
+        SortColumn column = sortColumn(sort);
+        List<Object> params = new ArrayList<>(3);
+        String where = after == null ? "" : "where " + keyset(column, sort, after, params) + " ";
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            ps = conn.prepareStatement(SELECT_SQL + where + orderBy(column, sort) + "limit ?");
+            int index = 1;
+            for (Object param : params){
+                ps.setObject(index++, param);
+            }
+            ps.setInt(index, limit);
+            rs = ps.executeQuery();
+
+            List<Seller> list = new ArrayList<>(limit);
+            SellerRowMapper mapper = new SellerRowMapper(rs, departmentCache);
 
             while (rs.next()){
-                Department dep = map.get(rs.getInt("DepartmentId"));
+                list.add(mapper.map(rs));
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeResultSet(rs);
+            DB.closeConnection(conn);
+        }
+    }
+
+    @Override
+    public Seller findAt(Seller after, int offset, SortSpec sort) {
+        SortColumn column = sortColumn(sort);
+        List<Object> params = new ArrayList<>(3);
+        String where = after == null ? "" : "where " + keyset(column, sort, after, params) + " ";
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            ps = conn.prepareStatement(SELECT_SQL + where + orderBy(column, sort) + "limit 1 offset ?");
+            int index = 1;
+            for (Object param : params){
+                ps.setObject(index++, param);
+            }
+            ps.setInt(index, offset);
+            rs = ps.executeQuery();
+            if (rs.next()){
+                return new SellerRowMapper(rs, departmentCache).map(rs);
+            }
+            return null;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeResultSet(rs);
+            DB.closeConnection(conn);
+        }
+    }
+
+    @Override
+    public Integer findKeyAt(Integer afterKey, int offset, boolean ascending) {
+        String op = ascending ? " > " : " < ";
+        String direction = ascending ? " asc " : " desc ";
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            ps = conn.prepareStatement("select Id from seller " +
+                    (afterKey == null ? "" : "where Id" + op + "? ") +
+                    "order by Id" + direction + "limit 1 offset ?");
+            int index = 1;
+            if (afterKey != null){
+                ps.setInt(index++, afterKey);
+            }
+            ps.setInt(index, offset);
+            rs = ps.executeQuery();
+            if (rs.next()){
+                return rs.getInt(1);
+            }
+            return null;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeResultSet(rs);
+            DB.closeConnection(conn);
+        }
+    }
+
+    @Override
+    public int count() {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            ps = conn.prepareStatement("select count(*) from seller");
+            rs = ps.executeQuery();
+            rs.next();
+            return rs.getInt(1);
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeResultSet(rs);
+            DB.closeConnection(conn);
+        }
+    }
 
-                if (dep == null) {
-                    dep = instantiateDepartment(rs);
-                    map.put(rs.getInt("DepartmentId"), dep);
+    @Override
+    public List<Seller> findByIds(Collection<Integer> ids) {
+        List<Seller> list = new ArrayList<>(ids.size());
+        if (ids.isEmpty()){
+            return list;
+        }
+        List<Integer> pending = new ArrayList<>(ids);
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            for (int from = 0; from < pending.size(); from += batchSize){
+                List<Integer> chunk = pending.subList(from, Math.min(from + batchSize, pending.size()));
+                StringBuilder sql = new StringBuilder(SELECT_SQL).append("where seller.Id in (");
+                for (int i = 0; i < chunk.size(); i++){
+                    sql.append(i == 0 ? "?" : ",?");
                 }
+                ps = conn.prepareStatement(sql.append(")").toString());
+                for (int i = 0; i < chunk.size(); i++){
+                    ps.setInt(i + 1, chunk.get(i));
+                }
+                rs = ps.executeQuery();
+                SellerRowMapper mapper = new SellerRowMapper(rs, departmentCache);
+                while (rs.next()){
+                    list.add(mapper.map(rs));
+                }
+                DB.closeResultSet(rs);
+                DB.closeStatement(ps);
+                rs = null;
+                ps = null;
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeResultSet(rs);
+            DB.closeConnection(conn);
+        }
+    }
 
-                Seller seller = instantiateSeller(rs, dep);
-                list.add(seller);
+    @Override
+    public List<SellerChange> findChangesSince(long sequence, int limit) {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            ps = conn.prepareStatement(
+                    "select Seq, SellerId, Op, ClientId, ChangedAt " +
+                            "from seller_change " +
+                            "where Seq > ? " +
+                            "order by Seq " +
+                            "limit ?"
+            );
+            ps.setLong(1, sequence);
+            ps.setInt(2, limit);
+            rs = ps.executeQuery();
+
+            List<SellerChange> list = new ArrayList<>();
+            while (rs.next()){
+                list.add(new SellerChange(
+                        rs.getLong("Seq"),
+                        rs.getInt("SellerId"),
+                        SellerChange.Type.fromCode(rs.getString("Op").charAt(0)),
+                        rs.getTimestamp("ChangedAt"),
+                        rs.getLong("ClientId") == SellerChangeLog.CLIENT_ID));
             }
             return list;
         } catch (SQLException e) {
@@ -215,6 +959,190 @@ public class SellerDaoJDBC implements SellerDao {
         }finally {
             DB.closeStatement(ps);
             DB.closeResultSet(rs);
+            DB.closeConnection(conn);
+        }
+    }
+
+    @Override
+    public long findLatestChangeSequence() {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            ps = conn.prepareStatement("select coalesce(max(Seq), 0) from seller_change");
+            rs = ps.executeQuery();
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeResultSet(rs);
+            DB.closeConnection(conn);
+        }
+    }
+
+    @Override
+    public int purgeChangesBefore(java.util.Date cutoff) {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        try {
+            conn = dataSource.getConnection();
+            ps = conn.prepareStatement("delete from seller_change where ChangedAt < ?");
+            ps.setTimestamp(1, new Timestamp(cutoff.getTime()));
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeConnection(conn);
+        }
+    }
+
+    @Override
+    public List<Seller> search(String text, SortSpec sort, int limit) {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            ps = conn.prepareStatement(
+                    "select seller.*, department.Name as DepName " +
+                            "from seller " +
+                            "inner join department " +
+                            "on seller.DepartmentId = department.Id " +
+                            "where (seller.Name like ? escape '!' " +
+                            "or seller.Email like ? escape '!' " +
+                            "or department.Name like ? escape '!') " +
+                            orderBy(sortColumn(sort), sort) +
+                            "limit ?"
+            );
+            String pattern = escapeLike(text.trim()) + "%";
+            ps.setString(1, pattern);
+            ps.setString(2, pattern);
+            ps.setString(3, pattern);
+            ps.setInt(4, limit);
+            rs = ps.executeQuery();
+
+            List<Seller> list = new ArrayList<>(Math.min(limit, 256));
+            SellerRowMapper mapper = new SellerRowMapper(rs, departmentCache);
+
+            while (rs.next()){
+                list.add(mapper.map(rs));
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeResultSet(rs);
+            DB.closeConnection(conn);
+        }
+    }
+
+    @Override
+    public List<DepartmentSalarySummary> summarizeSalaryByDepartment() {
+        return salarySummaryCache.get(this::querySalarySummary);
+    }
+
+    private List<DepartmentSalarySummary> querySalarySummary() {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            ps = conn.prepareStatement(
+                    "select s.DepartmentId, department.Name as DepName, s.Headcount, " +
+                            "s.TotalSalary, s.AverageSalary, s.MinSalary, s.MaxSalary " +
+                            "from (" +
+                            "select DepartmentId, count(*) as Headcount, sum(BaseSalary) as TotalSalary, " +
+                            "avg(BaseSalary) as AverageSalary, min(BaseSalary) as MinSalary, max(BaseSalary) as MaxSalary " +
+                            "from seller " +
+                            "group by DepartmentId" +
+                            ") s " +
+                            "inner join department " +
+                            "on s.DepartmentId = department.Id " +
+                            "order by department.Name, s.DepartmentId"
+            );
+            rs = ps.executeQuery();
+
+            List<DepartmentSalarySummary> list = new ArrayList<>();
+            while (rs.next()){
+                Department dep = departmentCache.resolve(rs.getInt(1), rs.getString(2));
+                list.add(new DepartmentSalarySummary(dep, rs.getInt(3), rs.getDouble(4),
+                        rs.getDouble(5), rs.getDouble(6), rs.getDouble(7)));
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }finally {
+            DB.closeStatement(ps);
+            DB.closeResultSet(rs);
+            DB.closeConnection(conn);
+        }
+    }
+
+    private static String escapeLike(String text){
+        StringBuilder sb = new StringBuilder(text.length() + 8);
+        for (char c : text.toCharArray()){
+            if (c == '!' || c == '%' || c == '_'){
+                sb.append('!');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static SortColumn sortColumn(SortSpec sort){
+        SortColumn column = SORT_COLUMNS.get(sort.getProperty());
+        if (column == null){
+            throw new IllegalArgumentException("Sellers cannot be sorted by " + sort.getProperty());
+        }
+        return column;
+    }
+
+    private static String keyset(SortColumn column, SortSpec sort, Seller after, List<Object> params){
+        String op = sort.isAscending() ? " > " : " < ";
+        if (column.isId()){
+            params.add(after.getId());
+            return "seller.Id" + op + "?";
+        }
+        String col = column.expression;
+        Object key = column.key.apply(after);
+        if (key == null){
+            params.add(after.getId());
+            return sort.isAscending()
+                    ? "((" + col + " is null and seller.Id > ?) or " + col + " is not null)"
+                    : "(" + col + " is null and seller.Id < ?)";
+        }
+        params.add(key);
+        params.add(key);
+        params.add(after.getId());
+        String seek = col + op + "? or (" + col + " = ? and seller.Id" + op + "?)";
+        return sort.isAscending() ? "(" + seek + ")" : "(" + seek + " or " + col + " is null)";
+    }
+
+    private static String orderBy(SortColumn column, SortSpec sort){
+        String direction = sort.isAscending() ? " asc" : " desc";
+        if (column.isId()){
+            return "order by seller.Id" + direction + " ";
+        }
+        return "order by " + column.expression + direction + ", seller.Id" + direction + " ";
+    }
+
+    private static final class SortColumn {
+
+        private final String expression;
+        private final Function<Seller, Object> key;
+
+        private SortColumn(String expression, Function<Seller, Object> key){
+            this.expression = expression;
+            this.key = key;
+        }
+
+        private boolean isId(){
+            return expression.equals("seller.Id");
         }
     }
 }
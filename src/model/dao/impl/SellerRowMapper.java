@@ -0,0 +1,46 @@
+package model.dao.impl;
+
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+class SellerRowMapper implements RowMapper<Seller> {
+
+    private final DepartmentCache departmentCache;
+    private final int idIndex;
+    private final int nameIndex;
+    private final int emailIndex;
+    private final int birthDateIndex;
+    private final int baseSalaryIndex;
+    private final int departmentIdIndex;
+    private final int departmentNameIndex;
+
+    SellerRowMapper(ResultSet rs, DepartmentCache departmentCache) throws SQLException {
+        this.departmentCache = departmentCache;
+        this.idIndex = rs.findColumn("Id");
+        this.nameIndex = rs.findColumn("Name");
+        this.emailIndex = rs.findColumn("Email");
+        this.birthDateIndex = rs.findColumn("BirthDate");
+        this.baseSalaryIndex = rs.findColumn("BaseSalary");
+        this.departmentIdIndex = rs.findColumn("DepartmentId");
+        this.departmentNameIndex = rs.findColumn("DepName");
+    }
+
+    @Override
+    public Seller map(ResultSet rs) throws SQLException {
+        Department dep = departmentCache.resolve(rs.getInt(departmentIdIndex), rs.getString(departmentNameIndex));
+
+        Seller seller = new Seller();
+        seller.setId(rs.getInt(idIndex));
+        seller.setName(rs.getString(nameIndex));
+        seller.setEmail(rs.getString(emailIndex));
+        seller.setBaseSalary(rs.getDouble(baseSalaryIndex));
+        Timestamp birthDate = rs.getTimestamp(birthDateIndex);
+        seller.setBirthDate(birthDate == null ? null : new java.util.Date(birthDate.getTime()));
+        seller.setDepartment(dep);
+        return seller;
+    }
+}
@@ -0,0 +1,75 @@
+package model.dao.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class DaoMethodStats implements DaoMethodStatsMBean {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+
+    public void record(long nanos, long rowCount){
+        latency.recordNanos(nanos);
+        rows.add(rowCount);
+    }
+
+    public void recordError(long nanos){
+        latency.recordNanos(nanos);
+        errors.increment();
+    }
+
+    public void addRows(long rowCount){
+        rows.add(rowCount);
+    }
+
+    public LatencyHistogram getLatency(){
+        return latency;
+    }
+
+    @Override
+    public long getCallCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRowCount() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.getMeanMillis();
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.getPercentileMillis(50);
+    }
+
+    @Override
+    public double getP95Millis() {
+        return latency.getPercentileMillis(95);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getMaxMillis();
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        errors.reset();
+        rows.reset();
+    }
+}
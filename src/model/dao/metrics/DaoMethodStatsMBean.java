@@ -0,0 +1,14 @@
+package model.dao.metrics;
+
+public interface DaoMethodStatsMBean {
+
+    long getCallCount();
+    long getErrorCount();
+    long getRowCount();
+    double getMeanMillis();
+    double getP50Millis();
+    double getP95Millis();
+    double getP99Millis();
+    double getMaxMillis();
+    void reset();
+}
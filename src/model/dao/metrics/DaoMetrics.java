@@ -0,0 +1,103 @@
+package model.dao.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+public class DaoMetrics {
+
+    private static final Map<String, DaoMethodStats> stats = new ConcurrentHashMap<>();
+
+    public static <T> T instrument(Class<T> daoInterface, T target){
+        Map<Method, DaoMethodStats> methodStats = new ConcurrentHashMap<>();
+        for (Method method : daoInterface.getMethods()){
+            methodStats.put(method, statsFor(daoInterface.getSimpleName(), method.getName()));
+        }
+        InvocationHandler handler = new MetricsHandler(target, methodStats);
+        return daoInterface.cast(Proxy.newProxyInstance(
+                daoInterface.getClassLoader(), new Class<?>[]{daoInterface}, handler));
+    }
+
+    public static DaoMethodStats statsFor(String dao, String method){
+        return stats.computeIfAbsent(dao + "." + method, key -> {
+            DaoMethodStats created = new DaoMethodStats();
+            register(dao, method, created);
+            return created;
+        });
+    }
+
+    public static Map<String, DaoMethodStats> getStats(){
+        return stats;
+    }
+
+    private static void register(String dao, String method, DaoMethodStats methodStats){
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("model.dao:type=DaoMetrics,dao=" + dao + ",method=" + method);
+            if (!server.isRegistered(name)){
+                server.registerMBean(methodStats, name);
+            }
+        } catch (JMException e) {
+            System.err.println("Could not register DAO metrics for " + dao + "." + method + ": " + e.getMessage());
+        }
+    }
+
+    private static class MetricsHandler implements InvocationHandler {
+
+        private final Object target;
+        private final Map<Method, DaoMethodStats> methodStats;
+
+        private MetricsHandler(Object target, Map<Method, DaoMethodStats> methodStats){
+            this.target = target;
+            this.methodStats = methodStats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            DaoMethodStats s = methodStats.get(method);
+            if (s == null){
+                return method.invoke(target, args);
+            }
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                s.recordError(System.nanoTime() - start);
+                throw e.getCause();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (result instanceof Stream){
+                s.record(elapsed, 0);
+                return ((Stream<?>) result).peek(row -> s.addRows(1));
+            }
+            s.record(elapsed, rowCount(method, args, result));
+            return result;
+        }
+
+        private long rowCount(Method method, Object[] args, Object result){
+            if (result instanceof Collection){
+                return ((Collection<?>) result).size();
+            }
+            if (method.getReturnType() == void.class){
+                return args != null && args.length == 1 && args[0] instanceof Collection
+                        ? ((Collection<?>) args[0]).size()
+                        : 1;
+            }
+            if (result == null || result instanceof Number){
+                return 0;
+            }
+            return 1;
+        }
+    }
+}
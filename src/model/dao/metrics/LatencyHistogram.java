@@ -0,0 +1,88 @@
+package model.dao.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray((MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void recordNanos(long nanos){
+        long micros = Math.max(nanos / 1000, 0);
+        buckets.incrementAndGet(indexOf(micros));
+        count.increment();
+        totalMicros.add(micros);
+        if (micros > maxMicros.get()){
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    public long getCount(){
+        return count.sum();
+    }
+
+    public double getMeanMillis(){
+        long n = count.sum();
+        return n == 0 ? 0.0 : totalMicros.sum() / (double) n / 1000.0;
+    }
+
+    public double getMaxMillis(){
+        return maxMicros.get() / 1000.0;
+    }
+
+    public double getPercentileMillis(double percentile){
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++){
+            total += buckets.get(i);
+        }
+        if (total == 0){
+            return 0.0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++){
+            seen += buckets.get(i);
+            if (seen >= target){
+                return Math.min(valueOf(i), maxMicros.get()) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public void reset(){
+        for (int i = 0; i < buckets.length(); i++){
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalMicros.reset();
+        maxMicros.set(0);
+    }
+
+    private static int indexOf(long micros){
+        if (micros < SUB_BUCKETS){
+            return (int) micros;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_EXPONENT);
+        int sub = (int) ((micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long valueOf(int index){
+        if (index < SUB_BUCKETS){
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        long low = (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return low + width / 2;
+    }
+}
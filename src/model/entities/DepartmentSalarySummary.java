@@ -0,0 +1,63 @@
+package model.entities;
+
+import java.io.Serializable;
+
+public class DepartmentSalarySummary implements Serializable {
+
+    private final Department department;
+    private final Integer headcount;
+    private final Double totalSalary;
+    private final Double averageSalary;
+    private final Double minSalary;
+    private final Double maxSalary;
+
+    public DepartmentSalarySummary(Department department, Integer headcount, Double totalSalary,
+                                   Double averageSalary, Double minSalary, Double maxSalary) {
+        this.department = department;
+        this.headcount = headcount;
+        this.totalSalary = totalSalary;
+        this.averageSalary = averageSalary;
+        this.minSalary = minSalary;
+        this.maxSalary = maxSalary;
+    }
+
+    public Department getDepartment() {
+        return department;
+    }
+
+    public String getDepartmentName() {
+        return department.getName();
+    }
+
+    public Integer getHeadcount() {
+        return headcount;
+    }
+
+    public Double getTotalSalary() {
+        return totalSalary;
+    }
+
+    public Double getAverageSalary() {
+        return averageSalary;
+    }
+
+    public Double getMinSalary() {
+        return minSalary;
+    }
+
+    public Double getMaxSalary() {
+        return maxSalary;
+    }
+
+    @Override
+    public String toString() {
+        return "DepartmentSalarySummary{" +
+                "department=" + department +
+                ", headcount=" + headcount +
+                ", totalSalary=" + totalSalary +
+                ", averageSalary=" + averageSalary +
+                ", minSalary=" + minSalary +
+                ", maxSalary=" + maxSalary +
+                '}';
+    }
+}
@@ -0,0 +1,74 @@
+package model.entities;
+
+import java.io.Serializable;
+import java.util.Date;
+
+public class SellerChange implements Serializable {
+
+    public enum Type {
+        INSERTED('I'), UPDATED('U'), DELETED('D');
+
+        private final char code;
+
+        Type(char code){
+            this.code = code;
+        }
+
+        public char getCode() {
+            return code;
+        }
+
+        public static Type fromCode(char code){
+            for (Type type : values()){
+                if (type.code == code){
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown change type: " + code);
+        }
+    }
+
+    private final long sequence;
+    private final Integer sellerId;
+    private final Type type;
+    private final Date changedAt;
+    private final boolean local;
+
+    public SellerChange(long sequence, Integer sellerId, Type type, Date changedAt, boolean local) {
+        this.sequence = sequence;
+        this.sellerId = sellerId;
+        this.type = type;
+        this.changedAt = changedAt;
+        this.local = local;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Integer getSellerId() {
+        return sellerId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Date getChangedAt() {
+        return changedAt;
+    }
+
+    public boolean isLocal() {
+        return local;
+    }
+
+    @Override
+    public String toString() {
+        return "SellerChange{" +
+                "sequence=" + sequence +
+                ", sellerId=" + sellerId +
+                ", type=" + type +
+                ", local=" + local +
+                '}';
+    }
+}
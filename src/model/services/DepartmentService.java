@@ -2,6 +2,7 @@ package model.services;
 
 import model.dao.DaoFactory;
 import model.dao.DepartmentDao;
+import model.dao.SortSpec;
 import model.entities.Department;
 
 import java.util.List;
@@ -9,20 +10,29 @@ import java.util.List;
 public class DepartmentService {
 
     private DepartmentDao dao = DaoFactory.createDepartmentDao();
+    private UnitOfWork unitOfWork = UnitOfWork.getInstance();
 
     public List<Department> findAll(){
-        return dao.findAll();
+        return unitOfWork.overlayDepartments(dao.findAll());
+    }
+
+    public List<Department> findAll(SortSpec sort){
+        return unitOfWork.overlayDepartments(dao.findAll(sort));
     }
 
     public void saveOrUpdate(Department department){
         if (department.getId() == null){
-            dao.insert(department);
+            unitOfWork.insert(department);
         }else {
-            dao.update(department);
+            unitOfWork.registerDirty(department);
         }
     }
 
     public void remove(Department department){
-        dao.deleteById(department.getId());
+        unitOfWork.delete(department);
+    }
+
+    public void commit(){
+        unitOfWork.flush();
     }
 }
@@ -0,0 +1,76 @@
+package model.services;
+
+import java.nio.file.Path;
+
+public class ImportProgress {
+
+    private final long rowsRead;
+    private final long rowsInserted;
+    private final long rowsRejected;
+    private final long departmentsCreated;
+    private final long bytesRead;
+    private final long totalBytes;
+    private final long elapsedMillis;
+    private final Path errorReport;
+
+    public ImportProgress(long rowsRead, long rowsInserted, long rowsRejected, long departmentsCreated,
+                          long bytesRead, long totalBytes, long elapsedMillis, Path errorReport) {
+        this.rowsRead = rowsRead;
+        this.rowsInserted = rowsInserted;
+        this.rowsRejected = rowsRejected;
+        this.departmentsCreated = departmentsCreated;
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.elapsedMillis = elapsedMillis;
+        this.errorReport = errorReport;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsInserted() {
+        return rowsInserted;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getDepartmentsCreated() {
+        return departmentsCreated;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public Path getErrorReport() {
+        return errorReport;
+    }
+
+    public double getRowsPerSecond(){
+        return elapsedMillis == 0 ? 0.0 : rowsInserted * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportProgress{" +
+                "rowsRead=" + rowsRead +
+                ", rowsInserted=" + rowsInserted +
+                ", rowsRejected=" + rowsRejected +
+                ", departmentsCreated=" + departmentsCreated +
+                ", bytesRead=" + bytesRead +
+                ", totalBytes=" + totalBytes +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
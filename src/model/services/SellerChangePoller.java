@@ -0,0 +1,226 @@
+package model.services;
+
+import db.DB;
+import model.dao.DaoFactory;
+import model.dao.SellerDao;
+import model.entities.Seller;
+import model.entities.SellerChange;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class SellerChangePoller {
+
+    public interface ChangeListener {
+        void onChanges(List<Seller> inserted, List<Seller> updated, List<Integer> deleted);
+    }
+
+    private final SellerDao dao;
+    private final long pollMillis;
+    private final int batchSize;
+    private final long gapTimeoutMillis;
+    private final long retentionMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lifecycle = new Object();
+    private ScheduledFuture<?> pollTask;
+    private volatile ChangeListener listener;
+    private volatile boolean stopped = false;
+
+    private boolean initialized = false;
+    private long cursor;
+    private final TreeSet<Long> seenAboveCursor = new TreeSet<>();
+    private long gapSince = 0;
+    private long lastPurge;
+    private long pollCount = 0;
+    private long changesApplied = 0;
+
+    public SellerChangePoller(){
+        this(DaoFactory.createSellerDao(),
+                DB.getIntProperty("changeLog.pollMillis", 2000),
+                DB.getIntProperty("changeLog.batchSize", 500),
+                DB.getIntProperty("changeLog.gapTimeoutMillis", 5000),
+                TimeUnit.HOURS.toMillis(DB.getIntProperty("changeLog.retentionHours", 24)));
+    }
+
+    public SellerChangePoller(SellerDao dao, long pollMillis, int batchSize, long gapTimeoutMillis, long retentionMillis){
+        if (pollMillis < 1 || batchSize < 1){
+            throw new IllegalArgumentException("Poll interval and batch size must be positive");
+        }
+        this.dao = dao;
+        this.pollMillis = pollMillis;
+        this.batchSize = batchSize;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.retentionMillis = retentionMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seller-change-poller");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static boolean isEnabled(){
+        return DaoFactory.isSellerChangeLogEnabled();
+    }
+
+    public void start(ChangeListener listener){
+        synchronized (lifecycle){
+            if (pollTask != null){
+                throw new IllegalStateException("Poller already started");
+            }
+            if (stopped){
+                return;
+            }
+            this.listener = listener;
+            scheduler.execute(this::pollSafely);
+            pollTask = scheduler.scheduleWithFixedDelay(this::pollSafely, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void stop(){
+        synchronized (lifecycle){
+            stopped = true;
+            listener = null;
+            if (pollTask != null){
+                pollTask.cancel(false);
+                pollTask = null;
+            }
+            scheduler.shutdown();
+        }
+    }
+
+    public synchronized long getCursor(){
+        return cursor;
+    }
+
+    public synchronized long getPollCount(){
+        return pollCount;
+    }
+
+    public synchronized long getChangesApplied(){
+        return changesApplied;
+    }
+
+    private void pollSafely(){
+        try {
+            poll();
+            purgeIfDue();
+        } catch (RuntimeException e) {
+            System.err.println("Seller change poll failed: " + e.getMessage());
+        }
+    }
+
+    public synchronized void poll(){
+        if (!initialized){
+            cursor = dao.findLatestChangeSequence();
+            lastPurge = System.currentTimeMillis();
+            initialized = true;
+            return;
+        }
+        pollCount++;
+        Map<Integer, SellerChange.Type> net = new LinkedHashMap<>();
+        boolean more = true;
+        while (more){
+            List<SellerChange> changes = dao.findChangesSince(cursor, batchSize);
+            int fresh = 0;
+            for (SellerChange change : changes){
+                if (!seenAboveCursor.add(change.getSequence())){
+                    continue;
+                }
+                fresh++;
+                if (!change.isLocal()){
+                    merge(net, change);
+                }
+            }
+            advanceCursor();
+            more = changes.size() == batchSize && fresh > 0;
+        }
+        if (net.isEmpty()){
+            return;
+        }
+        deliver(net);
+    }
+
+    private void advanceCursor(){
+        while (seenAboveCursor.remove(cursor + 1)){
+            cursor++;
+        }
+        if (seenAboveCursor.isEmpty()){
+            gapSince = 0;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (gapSince == 0){
+            gapSince = now;
+        }else if (now - gapSince >= gapTimeoutMillis){
+            cursor = seenAboveCursor.first() - 1;
+            while (seenAboveCursor.remove(cursor + 1)){
+                cursor++;
+            }
+            gapSince = seenAboveCursor.isEmpty() ? 0 : now;
+        }
+    }
+
+    private static void merge(Map<Integer, SellerChange.Type> net, SellerChange change){
+        SellerChange.Type previous = net.get(change.getSellerId());
+        SellerChange.Type next = change.getType();
+        if (previous == SellerChange.Type.INSERTED){
+            if (next == SellerChange.Type.DELETED){
+                net.remove(change.getSellerId());
+            }
+            return;
+        }
+        net.put(change.getSellerId(), next);
+    }
+
+    private void deliver(Map<Integer, SellerChange.Type> net){
+        List<Integer> toFetch = new ArrayList<>();
+        List<Integer> deleted = new ArrayList<>();
+        for (Map.Entry<Integer, SellerChange.Type> entry : net.entrySet()){
+            if (entry.getValue() == SellerChange.Type.DELETED){
+                deleted.add(entry.getKey());
+            }else {
+                toFetch.add(entry.getKey());
+            }
+        }
+        Map<Integer, Seller> current = new HashMap<>();
+        for (Seller seller : dao.findByIds(toFetch)){
+            current.put(seller.getId(), seller);
+        }
+        List<Seller> inserted = new ArrayList<>();
+        List<Seller> updated = new ArrayList<>();
+        for (Integer id : toFetch){
+            Seller seller = current.get(id);
+            if (seller == null){
+                deleted.add(id);
+            }else if (net.get(id) == SellerChange.Type.INSERTED){
+                inserted.add(seller);
+            }else {
+                updated.add(seller);
+            }
+        }
+        changesApplied += net.size();
+        ChangeListener target = listener;
+        if (target != null && !stopped){
+            target.onChanges(inserted, updated, deleted);
+        }
+    }
+
+    private void purgeIfDue(){
+        long now = System.currentTimeMillis();
+        if (retentionMillis <= 0 || now - lastPurge < TimeUnit.HOURS.toMillis(1)){
+            return;
+        }
+        lastPurge = now;
+        dao.purgeChangesBefore(new Date(now - retentionMillis));
+    }
+}
@@ -0,0 +1,111 @@
+package model.services;
+
+import db.DB;
+import model.dao.DaoFactory;
+import model.dao.SellerDao;
+import model.entities.Seller;
+import model.services.csv.CsvChannelWriter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public class SellerExportService {
+
+    public interface ProgressListener {
+        void onProgress(long rowsWritten, long totalRows);
+    }
+
+    private static final int PROGRESS_INTERVAL_ROWS = 10000;
+
+    private final SellerDao dao;
+    private final UnitOfWork unitOfWork;
+    private final int bufferSize;
+
+    public SellerExportService(){
+        this(DaoFactory.createSellerDao(), UnitOfWork.getInstance(), DB.getIntProperty("export.bufferSize", 64 * 1024));
+    }
+
+    public SellerExportService(SellerDao dao, UnitOfWork unitOfWork, int bufferSize){
+        this.dao = dao;
+        this.unitOfWork = unitOfWork;
+        this.bufferSize = bufferSize;
+    }
+
+    public long export(Path target, ProgressListener listener) throws IOException {
+        unitOfWork.flush();
+        AtomicLong total = new AtomicLong();
+        long rows = 0;
+        boolean completed = false;
+        ZoneId zone = ZoneId.systemDefault();
+        StringBuilder date = new StringBuilder(10);
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             CsvChannelWriter out = new CsvChannelWriter(channel, StandardCharsets.UTF_8, bufferSize);
+             Stream<Seller> sellers = dao.streamSnapshot(total::set)){
+
+            out.writeRecord("Id", "Name", "Email", "BirthDate", "BaseSalary", "Department");
+            Iterator<Seller> it = sellers.iterator();
+            while (it.hasNext()){
+                Seller seller = it.next();
+                out.writeField(seller.getId());
+                out.writeField(seller.getName());
+                out.writeField(seller.getEmail());
+                out.writeField(formatDate(seller, zone, date));
+                if (seller.getBaseSalary() == null){
+                    out.writeField((CharSequence) null);
+                }else {
+                    out.writeFixed(seller.getBaseSalary(), 2);
+                }
+                out.writeField(seller.getDepartment() == null ? null : seller.getDepartment().getName());
+                out.endRecord();
+
+                if (++rows % PROGRESS_INTERVAL_ROWS == 0){
+                    if (listener != null){
+                        listener.onProgress(rows, total.get());
+                    }
+                    if (Thread.currentThread().isInterrupted()){
+                        throw new InterruptedIOException("Export cancelled after " + rows + " rows");
+                    }
+                }
+            }
+            completed = true;
+        } finally {
+            if (!completed){
+                Files.deleteIfExists(target);
+            }
+        }
+        if (listener != null){
+            listener.onProgress(rows, Math.max(rows, total.get()));
+        }
+        return rows;
+    }
+
+    private static CharSequence formatDate(Seller seller, ZoneId zone, StringBuilder sb){
+        if (seller.getBirthDate() == null){
+            return null;
+        }
+        LocalDate date = LocalDate.ofInstant(seller.getBirthDate().toInstant(), zone);
+        sb.setLength(0);
+        sb.append(date.getYear()).append('-');
+        if (date.getMonthValue() < 10){
+            sb.append('0');
+        }
+        sb.append(date.getMonthValue()).append('-');
+        if (date.getDayOfMonth() < 10){
+            sb.append('0');
+        }
+        sb.append(date.getDayOfMonth());
+        return sb;
+    }
+}
@@ -0,0 +1,522 @@
+package model.services;
+
+import db.DB;
+import db.DbException;
+import model.dao.DaoFactory;
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.entities.Department;
+import model.entities.Seller;
+import model.services.csv.CsvReader;
+import model.services.csv.CsvWriter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SellerImportService {
+
+    public interface ProgressListener {
+        void onProgress(ImportProgress progress);
+    }
+
+    private static final String[] COLUMNS = {"name", "email", "birthdate", "basesalary", "department"};
+    private static final DateTimeFormatter FORM_DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final long PROGRESS_INTERVAL_MILLIS = 200;
+    private static final long POLL_MILLIS = 100;
+
+    private static final List<Row> END_OF_ROWS = new ArrayList<>(0);
+    private static final List<ValidRow> END_OF_SELLERS = new ArrayList<>(0);
+
+    private final SellerDao sellerDao;
+    private final DepartmentDao departmentDao;
+    private final UnitOfWork unitOfWork;
+    private final int batchSize;
+    private final int validatorThreads;
+    private final int writerThreads;
+    private final int queueCapacity;
+    private final boolean createMissingDepartments;
+
+    public SellerImportService(){
+        this(DaoFactory.createSellerDao(), DaoFactory.createDepartmentDao(), UnitOfWork.getInstance(),
+                DB.getIntProperty("import.batchSize", DB.getIntProperty("dao.batchSize", 1000)),
+                DB.getIntProperty("import.validatorThreads", Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2))),
+                DB.getIntProperty("import.writerThreads", 2),
+                DB.getIntProperty("import.queueCapacity", 16),
+                DB.getBooleanProperty("import.createMissingDepartments", false));
+    }
+
+    public SellerImportService(SellerDao sellerDao, DepartmentDao departmentDao, UnitOfWork unitOfWork, int batchSize,
+                               int validatorThreads, int writerThreads, int queueCapacity,
+                               boolean createMissingDepartments){
+        if (batchSize < 1 || validatorThreads < 1 || writerThreads < 1 || queueCapacity < 1){
+            throw new IllegalArgumentException("Batch size, thread counts and queue capacity must be positive");
+        }
+        this.sellerDao = sellerDao;
+        this.departmentDao = departmentDao;
+        this.unitOfWork = unitOfWork;
+        this.batchSize = batchSize;
+        this.validatorThreads = validatorThreads;
+        this.writerThreads = writerThreads;
+        this.queueCapacity = queueCapacity;
+        this.createMissingDepartments = createMissingDepartments;
+    }
+
+    public ImportProgress importFile(Path source, Path errorReport, ProgressListener listener)
+            throws IOException, InterruptedException {
+        unitOfWork.flush();
+        return new Run(Files.size(source), errorReport, listener).execute(source);
+    }
+
+    private final class Run {
+
+        private final long totalBytes;
+        private final Path errorReport;
+        private final ProgressListener listener;
+
+        private final BlockingQueue<List<Row>> rows = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<List<ValidRow>> sellers = new ArrayBlockingQueue<>(queueCapacity);
+        private final Map<String, Department> departments = new ConcurrentHashMap<>();
+        private final AtomicInteger validatorsLeft = new AtomicInteger(validatorThreads);
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final LongAdder inserted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder departmentsCreated = new LongAdder();
+        private final AtomicLong lastProgress = new AtomicLong();
+        private final Object reportLock = new Object();
+        private final long start = System.currentTimeMillis();
+
+        private CountingInputStream input;
+        private String[] header;
+        private int[] columnIndex;
+        private CsvWriter report;
+        private volatile boolean stopped = false;
+        private volatile Throwable failure;
+
+        private Run(long totalBytes, Path errorReport, ProgressListener listener){
+            this.totalBytes = totalBytes;
+            this.errorReport = errorReport;
+            this.listener = listener;
+        }
+
+        private ImportProgress execute(Path source) throws IOException, InterruptedException {
+            for (Department dep : departmentDao.findAll()){
+                if (dep.getName() != null){
+                    departments.putIfAbsent(key(dep.getName()), dep);
+                }
+            }
+
+            AtomicInteger threadCount = new AtomicInteger();
+            ExecutorService workers = Executors.newFixedThreadPool(validatorThreads + writerThreads, r -> {
+                Thread t = new Thread(r, "seller-import-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            for (int i = 0; i < validatorThreads; i++){
+                workers.execute(this::validateLoop);
+            }
+            for (int i = 0; i < writerThreads; i++){
+                workers.execute(this::writeLoop);
+            }
+
+            input = new CountingInputStream(Files.newInputStream(source));
+            try (CsvReader reader = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8))){
+                parse(reader);
+            } catch (InterruptedException e) {
+                stopped = true;
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            } finally {
+                workers.shutdown();
+                while (!workers.awaitTermination(1, TimeUnit.MINUTES)){
+                    stopped = true;
+                }
+                closeReport();
+            }
+
+            if (failure instanceof IOException){
+                throw (IOException) failure;
+            }
+            if (failure instanceof RuntimeException){
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error){
+                throw (Error) failure;
+            }
+            ImportProgress result = snapshot();
+            if (listener != null){
+                listener.onProgress(result);
+            }
+            return result;
+        }
+
+        private void parse(CsvReader reader) throws IOException, InterruptedException {
+            String[] first = reader.readRecord();
+            if (first != null){
+                mapHeader(first);
+                List<Row> batch = new ArrayList<>(batchSize);
+                String[] record;
+                while (!stopped && (record = reader.readRecord()) != null){
+                    if (record.length == 1 && record[0].trim().isEmpty()){
+                        continue;
+                    }
+                    batch.add(new Row(reader.getRecordLine(), record));
+                    rowsRead.incrementAndGet();
+                    if (batch.size() == batchSize){
+                        if (!put(rows, batch)){
+                            return;
+                        }
+                        batch = new ArrayList<>(batchSize);
+                        reportProgress();
+                        if (Thread.interrupted()){
+                            throw new InterruptedException();
+                        }
+                    }
+                }
+                if (!batch.isEmpty() && !put(rows, batch)){
+                    return;
+                }
+            }
+            for (int i = 0; i < validatorThreads; i++){
+                put(rows, END_OF_ROWS);
+            }
+        }
+
+        private void mapHeader(String[] first){
+            header = first;
+            columnIndex = new int[COLUMNS.length];
+            List<String> missing = new ArrayList<>();
+            for (int c = 0; c < COLUMNS.length; c++){
+                columnIndex[c] = -1;
+                for (int i = 0; i < first.length; i++){
+                    if (first[i].trim().replace(" ", "").replace("_", "").toLowerCase(Locale.ROOT).equals(COLUMNS[c])){
+                        columnIndex[c] = i;
+                        break;
+                    }
+                }
+                if (columnIndex[c] < 0){
+                    missing.add(COLUMNS[c]);
+                }
+            }
+            if (!missing.isEmpty()){
+                throw new IllegalArgumentException("The CSV header is missing the columns " + missing
+                        + ". Expected Name, Email, BirthDate, BaseSalary and Department");
+            }
+        }
+
+        private void validateLoop(){
+            try {
+                List<Row> batch;
+                while ((batch = take(rows)) != null){
+                    if (batch == END_OF_ROWS){
+                        if (validatorsLeft.decrementAndGet() == 0){
+                            for (int i = 0; i < writerThreads; i++){
+                                put(sellers, END_OF_SELLERS);
+                            }
+                        }
+                        return;
+                    }
+                    List<ValidRow> valid = new ArrayList<>(batch.size());
+                    for (Row row : batch){
+                        Seller seller = toSeller(row);
+                        if (seller != null){
+                            valid.add(new ValidRow(row, seller));
+                        }
+                    }
+                    if (!valid.isEmpty() && !put(sellers, valid)){
+                        return;
+                    }
+                }
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }
+
+        private Seller toSeller(Row row){
+            String birthDate = field(row, 2);
+            String baseSalary = field(row, 3);
+            String departmentName = field(row, 4);
+
+            Seller seller = new Seller();
+            seller.setName(field(row, 0));
+            seller.setEmail(field(row, 1));
+            seller.setBirthDate(parseDate(birthDate));
+            seller.setBaseSalary(parseDouble(baseSalary));
+
+            Map<String, String> errors = new HashMap<>(8);
+            SellerValidator.validate(seller, errors);
+            if (!isBlank(birthDate) && seller.getBirthDate() == null){
+                errors.put("birthDate", "Invalid date, expected yyyy-MM-dd or dd/MM/yyyy");
+            }
+            if (!isBlank(baseSalary) && seller.getBaseSalary() == null){
+                errors.put("baseSalary", "Invalid number");
+            }
+            if (isBlank(departmentName)){
+                errors.put("department", "Field can't be empty");
+            }else if (errors.isEmpty() || !createMissingDepartments){
+                seller.setDepartment(resolveDepartment(departmentName));
+                if (seller.getDepartment() == null){
+                    errors.put("department", "Unknown department " + departmentName);
+                }
+            }
+
+            if (!errors.isEmpty()){
+                reject(row, errors);
+                return null;
+            }
+            return seller;
+        }
+
+        private Department resolveDepartment(String name){
+            String key = key(name);
+            Department dep = departments.get(key);
+            if (dep != null || !createMissingDepartments){
+                return dep;
+            }
+            return departments.computeIfAbsent(key, k -> {
+                Department created = new Department(null, name);
+                departmentDao.insert(created);
+                departmentsCreated.increment();
+                return created;
+            });
+        }
+
+        private void writeLoop(){
+            try {
+                List<ValidRow> batch;
+                while ((batch = take(sellers)) != null && batch != END_OF_SELLERS){
+                    insert(batch);
+                    reportProgress();
+                }
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }
+
+        private void insert(List<ValidRow> batch){
+            List<Seller> list = new ArrayList<>(batch.size());
+            for (ValidRow valid : batch){
+                list.add(valid.seller);
+            }
+            try {
+                sellerDao.insertAll(list);
+                inserted.add(list.size());
+            } catch (DbException e) {
+                for (ValidRow valid : batch){
+                    try {
+                        sellerDao.insert(valid.seller);
+                        inserted.increment();
+                    } catch (DbException rowError) {
+                        Map<String, String> errors = new HashMap<>();
+                        errors.put("database", rowError.getMessage());
+                        reject(valid.row, errors);
+                    }
+                }
+            }
+        }
+
+        private void reject(Row row, Map<String, String> errors){
+            rejected.increment();
+            if (errorReport == null){
+                return;
+            }
+            StringBuilder message = new StringBuilder();
+            for (Map.Entry<String, String> error : new TreeMap<>(errors).entrySet()){
+                if (message.length() > 0){
+                    message.append("; ");
+                }
+                message.append(error.getKey()).append(": ").append(error.getValue());
+            }
+            String[] record = new String[row.fields.length + 2];
+            record[0] = String.valueOf(row.line);
+            record[1] = message.toString();
+            System.arraycopy(row.fields, 0, record, 2, row.fields.length);
+
+            synchronized (reportLock){
+                try {
+                    if (report == null){
+                        report = new CsvWriter(Files.newBufferedWriter(errorReport, StandardCharsets.UTF_8));
+                        String[] reportHeader = new String[header.length + 2];
+                        reportHeader[0] = "Line";
+                        reportHeader[1] = "Errors";
+                        System.arraycopy(header, 0, reportHeader, 2, header.length);
+                        report.writeRecord(reportHeader);
+                    }
+                    report.writeRecord(record);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        private void closeReport() throws IOException {
+            synchronized (reportLock){
+                if (report != null){
+                    report.close();
+                }
+            }
+        }
+
+        private void reportProgress(){
+            if (listener == null){
+                return;
+            }
+            long now = System.currentTimeMillis();
+            long last = lastProgress.get();
+            if (now - last >= PROGRESS_INTERVAL_MILLIS && lastProgress.compareAndSet(last, now)){
+                listener.onProgress(snapshot());
+            }
+        }
+
+        private ImportProgress snapshot(){
+            long rejectedRows = rejected.sum();
+            return new ImportProgress(rowsRead.get(), inserted.sum(), rejectedRows, departmentsCreated.sum(),
+                    input.count, totalBytes, System.currentTimeMillis() - start,
+                    rejectedRows > 0 ? errorReport : null);
+        }
+
+        private void fail(Throwable e){
+            if (failure == null){
+                failure = e instanceof UncheckedIOException ? e.getCause() : e;
+            }
+            stopped = true;
+        }
+
+        private <E> E take(BlockingQueue<E> queue) throws InterruptedException {
+            while (!stopped){
+                E item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (item != null){
+                    return item;
+                }
+            }
+            return null;
+        }
+
+        private <E> boolean put(BlockingQueue<E> queue, E item) throws InterruptedException {
+            while (!stopped){
+                if (queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)){
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private String field(Row row, int column){
+            int index = columnIndex[column];
+            return index < row.fields.length ? row.fields[index].trim() : null;
+        }
+    }
+
+    private static String key(String departmentName){
+        return departmentName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String str){
+        return str == null || str.trim().equals("");
+    }
+
+    private static Date parseDate(String str){
+        if (isBlank(str)){
+            return null;
+        }
+        try {
+            LocalDate date = str.indexOf('/') >= 0 ? LocalDate.parse(str, FORM_DATE_FORMAT) : LocalDate.parse(str);
+            return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Double parseDouble(String str){
+        if (isBlank(str)){
+            return null;
+        }
+        try {
+            return Double.parseDouble(str);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static final class Row {
+
+        private final long line;
+        private final String[] fields;
+
+        private Row(long line, String[] fields){
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+
+    private static final class ValidRow {
+
+        private final Row row;
+        private final Seller seller;
+
+        private ValidRow(Row row, Seller seller){
+            this.row = row;
+            this.seller = seller;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private volatile long count = 0;
+
+        private CountingInputStream(InputStream in){
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0){
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0){
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -3,28 +3,84 @@ package model.services;
 import model.dao.DaoFactory;
 import model.dao.DepartmentDao;
 import model.dao.SellerDao;
+import model.dao.SortSpec;
 import model.entities.Department;
+import model.entities.DepartmentSalarySummary;
 import model.entities.Seller;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 public class SellerService {
 
     private SellerDao dao = DaoFactory.createSellerDao();
+    private UnitOfWork unitOfWork = UnitOfWork.getInstance();
 
     public List<Seller> findAll(){
-        return dao.findAll();
+        return unitOfWork.overlaySellers(dao.findAll());
+    }
+
+    public Seller findById(Integer id){
+        return unitOfWork.overlay(dao.findById(id));
+    }
+
+    public List<Seller> findByDepartment(Department department){
+        return unitOfWork.overlaySellers(dao.findByDepartment(department));
+    }
+
+    public Stream<Seller> streamAll(){
+        return dao.streamAll().map(unitOfWork::overlay).filter(Objects::nonNull);
+    }
+
+    public List<Seller> findPage(Integer afterKey, int limit){
+        int deletes = unitOfWork.getUnsavedSellerDeletes();
+        return unitOfWork.overlaySellers(dao.findPage(afterKey, limit + deletes), limit);
+    }
+
+    public List<Seller> findPage(Seller after, SortSpec sort, int limit){
+        int deletes = unitOfWork.getUnsavedSellerDeletes();
+        return unitOfWork.overlaySellers(dao.findPage(after, sort, limit + deletes), limit);
+    }
+
+    public Integer findKeyAt(Integer afterKey, int offset, boolean ascending){
+        return dao.findKeyAt(afterKey, offset, ascending);
+    }
+
+    public Seller findAt(Seller after, int offset, SortSpec sort){
+        return dao.findAt(after, offset, sort);
+    }
+
+    public int count(){
+        return unitOfWork.overlaySellerCount(dao.count());
+    }
+
+    public List<Seller> search(String text, SortSpec sort, int limit){
+        int deletes = unitOfWork.getUnsavedSellerDeletes();
+        return unitOfWork.overlaySellers(dao.search(text, sort, limit + deletes), limit);
+    }
+
+    public List<DepartmentSalarySummary> summarizeSalaryByDepartment(){
+        return unitOfWork.overlaySummaries(dao.summarizeSalaryByDepartment());
     }
 
     public void saveOrUpdate(Seller seller){
+        saveOrUpdate(seller, null);
+    }
+
+    public void saveOrUpdate(Seller seller, Seller original){
         if (seller.getId() == null){
-            dao.insert(seller);
+            unitOfWork.insert(seller);
         }else {
-            dao.update(seller);
+            unitOfWork.registerDirty(seller, original);
         }
     }
 
     public void remove(Seller seller){
-        dao.deleteById(seller.getId());
+        unitOfWork.registerDeleted(seller);
+    }
+
+    public void commit(){
+        unitOfWork.flush();
     }
 }
@@ -0,0 +1,48 @@
+package model.services;
+
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.util.Collections;
+import java.util.List;
+
+public class SellerSnapshot {
+
+    private final long changeSequence;
+    private final long createdAt;
+    private final List<Department> departments;
+    private final List<Seller> sellers;
+
+    public SellerSnapshot(long changeSequence, long createdAt, List<Department> departments, List<Seller> sellers) {
+        this.changeSequence = changeSequence;
+        this.createdAt = createdAt;
+        this.departments = List.copyOf(departments);
+        this.sellers = Collections.unmodifiableList(sellers);
+    }
+
+    public long getChangeSequence() {
+        return changeSequence;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<Department> getDepartments() {
+        return departments;
+    }
+
+    public List<Seller> getSellers() {
+        return sellers;
+    }
+
+    @Override
+    public String toString() {
+        return "SellerSnapshot{" +
+                "changeSequence=" + changeSequence +
+                ", createdAt=" + createdAt +
+                ", departments=" + departments.size() +
+                ", sellers=" + sellers.size() +
+                '}';
+    }
+}
@@ -0,0 +1,204 @@
+package model.services;
+
+import db.DB;
+import model.dao.DaoFactory;
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.entities.Department;
+import model.entities.Seller;
+import model.entities.SellerChange;
+import model.services.snapshot.SellerSnapshotFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+public class SellerSnapshotService {
+
+    private final SellerDao sellerDao;
+    private final DepartmentDao departmentDao;
+    private final Path file;
+    private final int sourceId;
+    private final int batchSize;
+    private final long gapTimeoutMillis;
+    private final long retentionMillis;
+    private final boolean changeLogEnabled;
+
+    public SellerSnapshotService(){
+        this(DaoFactory.createSellerDao(), DaoFactory.createDepartmentDao(),
+                Paths.get(DB.getProperties().getProperty("snapshot.file", "seller-snapshot.bin")),
+                DB.getProperties().getProperty("dbUrl", "").hashCode(),
+                DB.getIntProperty("changeLog.batchSize", 500),
+                DB.getIntProperty("changeLog.gapTimeoutMillis", 5000),
+                TimeUnit.HOURS.toMillis(DB.getIntProperty("changeLog.retentionHours", 24)),
+                DaoFactory.getSellerChangeLog() != null);
+    }
+
+    public SellerSnapshotService(SellerDao sellerDao, DepartmentDao departmentDao, Path file, int sourceId,
+                                 int batchSize, long gapTimeoutMillis, long retentionMillis,
+                                 boolean changeLogEnabled){
+        this.sellerDao = sellerDao;
+        this.departmentDao = departmentDao;
+        this.file = file;
+        this.sourceId = sourceId;
+        this.batchSize = batchSize;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.retentionMillis = retentionMillis;
+        this.changeLogEnabled = changeLogEnabled;
+    }
+
+    public static boolean isEnabled(){
+        return DB.getBooleanProperty("snapshot.enabled", true);
+    }
+
+    public SellerSnapshot load(){
+        if (!Files.exists(file)){
+            return null;
+        }
+        try {
+            return SellerSnapshotFile.read(file, sourceId);
+        } catch (IOException e) {
+            System.err.println("Ignoring seller snapshot " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void save(SellerSnapshot snapshot) throws IOException {
+        SellerSnapshotFile.write(file, snapshot, sourceId);
+    }
+
+    public void refresh(SellerSnapshot snapshot) throws IOException {
+        if (snapshot == null || isExpired(snapshot) || (changeLogEnabled && !reconcile(snapshot))){
+            download();
+        }
+    }
+
+    public boolean isExpired(SellerSnapshot snapshot){
+        return retentionMillis > 0 && System.currentTimeMillis() - snapshot.getCreatedAt() >= retentionMillis;
+    }
+
+    public boolean reconcile(SellerSnapshot snapshot) throws IOException {
+        long read = snapshot.getChangeSequence();
+        List<SellerChange> changes = new ArrayList<>();
+        Set<Integer> changed = new HashSet<>();
+        while (true){
+            List<SellerChange> batch = sellerDao.findChangesSince(read, batchSize);
+            for (SellerChange change : batch){
+                changes.add(change);
+                changed.add(change.getSellerId());
+                read = change.getSequence();
+            }
+            if (batch.size() < batchSize){
+                break;
+            }
+            if (changed.size() > snapshot.getSellers().size() / 2){
+                return false;
+            }
+        }
+
+        List<Department> departments = departmentDao.findAll();
+        if (changed.isEmpty() && sameDepartments(departments, snapshot.getDepartments())){
+            return true;
+        }
+        List<Seller> fresh = new ArrayList<>(sellerDao.findByIds(changed));
+        fresh.sort(Comparator.comparing(Seller::getId));
+        SellerSnapshotFile.write(file, settledSequence(snapshot.getChangeSequence(), changes), System.currentTimeMillis(),
+                departments, merge(snapshot.getSellers().iterator(), changed, fresh.iterator()), sourceId);
+        return true;
+    }
+
+    private long settledSequence(long sequence, List<SellerChange> changes){
+        if (changes.isEmpty()){
+            return sequence;
+        }
+        Date latest = changes.get(changes.size() - 1).getChangedAt();
+        for (SellerChange change : changes){
+            boolean settled = change.getSequence() == sequence + 1
+                    || latest.getTime() - change.getChangedAt().getTime() >= gapTimeoutMillis;
+            if (!settled){
+                break;
+            }
+            sequence = change.getSequence();
+        }
+        return sequence;
+    }
+
+    public void download() throws IOException {
+        long sequence = changeLogEnabled ? sellerDao.findLatestChangeSequence() : 0;
+        List<Department> departments = departmentDao.findAll();
+        try (Stream<Seller> stream = sellerDao.streamSnapshot(count -> {})){
+            SellerSnapshotFile.write(file, sequence, System.currentTimeMillis(), departments,
+                    stream.iterator(), sourceId);
+        }
+    }
+
+    private static Iterator<Seller> merge(Iterator<Seller> rows, Set<Integer> changed, Iterator<Seller> fresh){
+        return new Iterator<Seller>() {
+
+            private Seller nextRow = advance(rows);
+            private Seller nextFresh = fresh.hasNext() ? fresh.next() : null;
+
+            private Seller advance(Iterator<Seller> it){
+                while (it.hasNext()){
+                    Seller seller = it.next();
+                    if (!changed.contains(seller.getId())){
+                        return seller;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return nextRow != null || nextFresh != null;
+            }
+
+            @Override
+            public Seller next() {
+                Seller seller;
+                if (nextFresh == null || (nextRow != null && nextRow.getId() < nextFresh.getId())){
+                    if (nextRow == null){
+                        throw new NoSuchElementException();
+                    }
+                    seller = nextRow;
+                    nextRow = advance(rows);
+                }else {
+                    seller = nextFresh;
+                    nextFresh = fresh.hasNext() ? fresh.next() : null;
+                }
+                return seller;
+            }
+        };
+    }
+
+    private static boolean sameDepartments(List<Department> a, List<Department> b){
+        if (a.size() != b.size()){
+            return false;
+        }
+        Map<Integer, String> names = new HashMap<>();
+        for (Department department : b){
+            names.put(department.getId(), department.getName());
+        }
+        for (Department department : a){
+            if (!names.containsKey(department.getId())
+                    || !Objects.equals(names.get(department.getId()), department.getName())){
+                return false;
+            }
+        }
+        return true;
+    }
+}
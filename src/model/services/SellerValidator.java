@@ -0,0 +1,49 @@
+package model.services;
+
+import model.entities.Seller;
+import model.exceptions.ValidationException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class SellerValidator {
+
+    public static final int NAME_MAX_LENGTH = 60;
+    public static final int EMAIL_MAX_LENGTH = 50;
+
+    public static void validate(Seller seller){
+        Map<String, String> errors = new HashMap<>();
+        validate(seller, errors);
+        if (errors.size() > 0){
+            ValidationException exception = new ValidationException("Validation error");
+            errors.forEach(exception::addError);
+            throw exception;
+        }
+    }
+
+    public static void validate(Seller seller, Map<String, String> errors){
+        if (isBlank(seller.getName())){
+            errors.put("name", "Field can't be empty");
+        }else if (seller.getName().length() > NAME_MAX_LENGTH){
+            errors.put("name", "Field can't be longer than " + NAME_MAX_LENGTH + " characters");
+        }
+
+        if (isBlank(seller.getEmail())){
+            errors.put("email", "Field can't be empty");
+        }else if (seller.getEmail().length() > EMAIL_MAX_LENGTH){
+            errors.put("email", "Field can't be longer than " + EMAIL_MAX_LENGTH + " characters");
+        }
+
+        if (seller.getBirthDate() == null){
+            errors.put("birthDate", "Field can't be empty");
+        }
+
+        if (seller.getBaseSalary() == null){
+            errors.put("baseSalary", "Field can't be empty");
+        }
+    }
+
+    private static boolean isBlank(String str){
+        return str == null || str.trim().equals("");
+    }
+}
@@ -0,0 +1,612 @@
+package model.services;
+
+import db.DB;
+import db.DbException;
+import model.dao.DaoFactory;
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.entities.Department;
+import model.entities.DepartmentSalarySummary;
+import model.entities.Seller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+public class UnitOfWork {
+
+    private static final int MAX_REPORTED_ERRORS = 5;
+
+    private static UnitOfWork instance = null;
+
+    private final SellerDao sellerDao;
+    private final DepartmentDao departmentDao;
+    private final long flushDelayMillis;
+    private final int maxPending;
+    private final ScheduledExecutorService flusher;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final List<Consumer<RuntimeException>> errorListeners = new CopyOnWriteArrayList<>();
+
+    private Changes pending = new Changes();
+    private Changes flushing = null;
+    private Changes failed = new Changes();
+    private ScheduledFuture<?> scheduledFlush = null;
+    private long flushCount = 0;
+    private long flushedChanges = 0;
+
+    public UnitOfWork(SellerDao sellerDao, DepartmentDao departmentDao, long flushDelayMillis, int maxPending){
+        if (maxPending < 1){
+            throw new IllegalArgumentException("Max pending changes must be positive");
+        }
+        this.sellerDao = sellerDao;
+        this.departmentDao = departmentDao;
+        this.flushDelayMillis = flushDelayMillis;
+        this.maxPending = maxPending;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "unit-of-work-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static synchronized UnitOfWork getInstance(){
+        if (instance == null){
+            instance = new UnitOfWork(DaoFactory.createSellerDao(), DaoFactory.createDepartmentDao(),
+                    DB.getIntProperty("uow.flushDelayMillis", 500),
+                    DB.getIntProperty("uow.maxPending", 500));
+        }
+        return instance;
+    }
+
+    public static synchronized void closeInstance(){
+        if (instance != null){
+            instance.close();
+            instance = null;
+        }
+    }
+
+    public void addErrorListener(Consumer<RuntimeException> listener){
+        errorListeners.add(listener);
+    }
+
+    public void removeErrorListener(Consumer<RuntimeException> listener){
+        errorListeners.remove(listener);
+    }
+
+    public void registerNew(Seller seller){
+        synchronized (this){
+            failed.sellerInserts.removeIf(s -> s == seller);
+            if (!containsIdentity(pending.sellerInserts, seller)){
+                pending.sellerInserts.add(seller);
+            }
+        }
+        changed();
+    }
+
+    public void registerDirty(Seller seller, Seller original){
+        if (seller.getId() == null){
+            registerNew(seller);
+            return;
+        }
+        synchronized (this){
+            if (pending.sellerDeletes.containsKey(seller.getId())){
+                return;
+            }
+            PendingUpdate<Seller> previous = failed.sellerUpdates.remove(seller.getId());
+            PendingUpdate<Seller> update = pending.sellerUpdates.get(seller.getId());
+            if (update == null){
+                pending.sellerUpdates.put(seller.getId(),
+                        new PendingUpdate<>(seller, previous == null ? original : previous.original));
+            }else {
+                update.current = seller;
+            }
+        }
+        changed();
+    }
+
+    public void registerDeleted(Seller seller){
+        synchronized (this){
+            if (seller.getId() == null){
+                pending.sellerInserts.removeIf(s -> s == seller);
+                failed.sellerInserts.removeIf(s -> s == seller);
+                return;
+            }
+            PendingUpdate<Seller> update = pending.sellerUpdates.remove(seller.getId());
+            if (update == null){
+                update = failed.sellerUpdates.remove(seller.getId());
+            }
+            failed.sellerDeletes.remove(seller.getId());
+            pending.sellerDeletes.put(seller.getId(),
+                    update != null && update.original != null ? update.original : seller);
+        }
+        changed();
+    }
+
+    public void registerNew(Department department){
+        synchronized (this){
+            failed.departmentInserts.removeIf(d -> d == department);
+            if (!containsIdentity(pending.departmentInserts, department)){
+                pending.departmentInserts.add(department);
+            }
+        }
+        changed();
+    }
+
+    public void registerDirty(Department department){
+        if (department.getId() == null){
+            registerNew(department);
+            return;
+        }
+        synchronized (this){
+            failed.departmentUpdates.remove(department.getId());
+            if (!pending.departmentDeletes.contains(department.getId())){
+                pending.departmentUpdates.put(department.getId(), department);
+            }
+        }
+        changed();
+    }
+
+    public void registerDeleted(Department department){
+        synchronized (this){
+            if (department.getId() == null){
+                pending.departmentInserts.removeIf(d -> d == department);
+                failed.departmentInserts.removeIf(d -> d == department);
+                return;
+            }
+            failed.departmentUpdates.remove(department.getId());
+            failed.departmentDeletes.remove(department.getId());
+            pending.departmentUpdates.remove(department.getId());
+            pending.departmentDeletes.add(department.getId());
+        }
+        changed();
+    }
+
+    public void insert(Seller seller){
+        sellerDao.insert(seller);
+    }
+
+    public void insert(Department department){
+        departmentDao.insert(department);
+    }
+
+    public void delete(Department department){
+        flush();
+        departmentDao.deleteById(department.getId());
+        synchronized (this){
+            pending.departmentUpdates.remove(department.getId());
+            failed.departmentUpdates.remove(department.getId());
+            failed.departmentDeletes.remove(department.getId());
+        }
+    }
+
+    public synchronized Seller overlay(Seller seller){
+        if (seller == null){
+            return null;
+        }
+        for (Changes changes : unsaved()){
+            if (changes.sellerDeletes.containsKey(seller.getId())){
+                return null;
+            }
+            PendingUpdate<Seller> update = changes.sellerUpdates.get(seller.getId());
+            if (update != null){
+                return update.current;
+            }
+        }
+        return seller;
+    }
+
+    public List<Seller> overlaySellers(List<Seller> sellers){
+        return overlaySellers(sellers, Integer.MAX_VALUE);
+    }
+
+    public synchronized List<Seller> overlaySellers(List<Seller> sellers, int limit){
+        List<Seller> list = new ArrayList<>(Math.min(sellers.size(), limit));
+        for (Seller seller : sellers){
+            Seller current = overlay(seller);
+            if (current != null && list.size() < limit){
+                list.add(current);
+            }
+        }
+        return list;
+    }
+
+    public synchronized int getUnsavedSellerDeletes(){
+        int deletes = 0;
+        for (Changes changes : unsaved()){
+            deletes += changes.sellerDeletes.size();
+        }
+        return deletes;
+    }
+
+    public int overlaySellerCount(int count){
+        return Math.max(0, count - getUnsavedSellerDeletes());
+    }
+
+    public synchronized List<Department> overlayDepartments(List<Department> departments){
+        List<Department> list = new ArrayList<>(departments.size());
+        for (Department department : departments){
+            Department current = department;
+            for (Changes changes : unsaved()){
+                if (changes.departmentDeletes.contains(department.getId())){
+                    current = null;
+                    break;
+                }
+                Department update = changes.departmentUpdates.get(department.getId());
+                if (update != null){
+                    current = update;
+                    break;
+                }
+            }
+            if (current != null){
+                list.add(current);
+            }
+        }
+        return list;
+    }
+
+    public synchronized List<DepartmentSalarySummary> overlaySummaries(List<DepartmentSalarySummary> summaries){
+        Map<Integer, SalaryTotals> totals = new LinkedHashMap<>();
+        for (DepartmentSalarySummary summary : summaries){
+            totals.put(summary.getDepartment().getId(), new SalaryTotals(summary));
+        }
+        boolean changed = false;
+        Set<Integer> seen = new HashSet<>();
+        for (Changes changes : unsaved()){
+            for (Map.Entry<Integer, PendingUpdate<Seller>> entry : changes.sellerUpdates.entrySet()){
+                PendingUpdate<Seller> update = entry.getValue();
+                if (update.original != null && seen.add(entry.getKey())){
+                    changed |= SalaryTotals.remove(totals, update.original);
+                    changed |= SalaryTotals.add(totals, update.current);
+                }
+            }
+            for (Map.Entry<Integer, Seller> entry : changes.sellerDeletes.entrySet()){
+                if (seen.add(entry.getKey())){
+                    changed |= SalaryTotals.remove(totals, entry.getValue());
+                }
+            }
+        }
+        if (!changed){
+            return summaries;
+        }
+        List<DepartmentSalarySummary> list = new ArrayList<>(totals.size());
+        for (SalaryTotals department : totals.values()){
+            if (department.headcount > 0){
+                list.add(department.toSummary());
+            }
+        }
+        return list;
+    }
+
+    public synchronized int getPendingCount(){
+        return pending.size();
+    }
+
+    public synchronized boolean hasPendingChanges(){
+        return pending.size() > 0;
+    }
+
+    public synchronized int getFailedCount(){
+        return failed.size();
+    }
+
+    public synchronized long getFlushCount(){
+        return flushCount;
+    }
+
+    public synchronized long getFlushedChanges(){
+        return flushedChanges;
+    }
+
+    public void flush(){
+        flushLock.lock();
+        try {
+            Changes changes;
+            synchronized (this){
+                if (scheduledFlush != null){
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+                if (pending.size() == 0){
+                    return;
+                }
+                changes = pending;
+                flushing = changes;
+                pending = new Changes();
+            }
+            Changes rejected = new Changes();
+            List<String> errors = new ArrayList<>();
+            try {
+                DB.inTransaction(() -> write(changes));
+            } catch (RuntimeException e) {
+                writeEach(changes, rejected, errors);
+            }
+            synchronized (this){
+                flushing = null;
+                rejected.dropTouchedBy(pending);
+                failed = failed.mergeNewer(rejected);
+                flushCount++;
+                flushedChanges += changes.size() - rejected.size();
+            }
+            if (!errors.isEmpty()){
+                DbException e = new DbException(errors.size() + " change(s) could not be saved and were set aside:\n"
+                        + String.join("\n", errors.subList(0, Math.min(errors.size(), MAX_REPORTED_ERRORS)))
+                        + (errors.size() > MAX_REPORTED_ERRORS ? "\n..." : ""));
+                for (Consumer<RuntimeException> listener : errorListeners){
+                    listener.accept(e);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public void retryFailed(){
+        synchronized (this){
+            pending = failed.mergeNewer(pending);
+            failed = new Changes();
+        }
+        flusher.execute(this::backgroundFlush);
+    }
+
+    public synchronized int discardFailed(){
+        int discarded = failed.size();
+        failed = new Changes();
+        return discarded;
+    }
+
+    public void close(){
+        try {
+            flush();
+            synchronized (this){
+                if (failed.size() > 0){
+                    System.err.println("Discarding " + failed.size() + " change(s) that could not be saved");
+                }
+            }
+        } finally {
+            flusher.shutdownNow();
+        }
+    }
+
+    private List<Changes> unsaved(){
+        return flushing == null ? List.of(pending) : List.of(pending, flushing);
+    }
+
+    private void write(Changes changes){
+        departmentDao.insertAll(changes.departmentInserts);
+        departmentDao.updateAll(changes.departmentUpdates.values());
+        sellerDao.insertAll(changes.sellerInserts);
+
+        List<Seller> sellers = new ArrayList<>(changes.sellerUpdates.size());
+        List<Seller> originals = new ArrayList<>(changes.sellerUpdates.size());
+        for (PendingUpdate<Seller> update : changes.sellerUpdates.values()){
+            sellers.add(update.current);
+            originals.add(update.original);
+        }
+        sellerDao.updateAll(sellers, originals);
+        sellerDao.deleteAllById(changes.sellerDeletes.keySet());
+        departmentDao.deleteAllById(changes.departmentDeletes);
+    }
+
+    private void writeEach(Changes changes, Changes rejected, List<String> errors){
+        for (Department department : changes.departmentInserts){
+            if (!attempt(() -> departmentDao.insert(department), "new department " + department.getName(), errors)){
+                rejected.departmentInserts.add(department);
+            }
+        }
+        for (Department department : changes.departmentUpdates.values()){
+            if (!attempt(() -> departmentDao.update(department), "department " + department.getId(), errors)){
+                rejected.departmentUpdates.put(department.getId(), department);
+            }
+        }
+        for (Seller seller : changes.sellerInserts){
+            if (!attempt(() -> sellerDao.insert(seller), "new seller " + seller.getName(), errors)){
+                rejected.sellerInserts.add(seller);
+            }
+        }
+        for (Map.Entry<Integer, PendingUpdate<Seller>> entry : changes.sellerUpdates.entrySet()){
+            PendingUpdate<Seller> update = entry.getValue();
+            Runnable write = () -> sellerDao.updateAll(Collections.singletonList(update.current),
+                    Collections.singletonList(update.original));
+            if (!attempt(write, "seller " + entry.getKey(), errors)){
+                rejected.sellerUpdates.put(entry.getKey(), update);
+            }
+        }
+        for (Map.Entry<Integer, Seller> entry : changes.sellerDeletes.entrySet()){
+            if (!attempt(() -> sellerDao.deleteById(entry.getKey()), "deleting seller " + entry.getKey(), errors)){
+                rejected.sellerDeletes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Integer id : changes.departmentDeletes){
+            if (!attempt(() -> departmentDao.deleteById(id), "deleting department " + id, errors)){
+                rejected.departmentDeletes.add(id);
+            }
+        }
+    }
+
+    private static boolean attempt(Runnable write, String change, List<String> errors){
+        try {
+            DB.inTransaction(write);
+            return true;
+        } catch (RuntimeException e) {
+            errors.add(change + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void changed(){
+        boolean flushNow;
+        synchronized (this){
+            flushNow = pending.size() >= maxPending;
+            if (!flushNow && scheduledFlush == null){
+                scheduledFlush = flusher.schedule(this::backgroundFlush, flushDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (flushNow){
+            flusher.execute(this::backgroundFlush);
+        }
+    }
+
+    private void backgroundFlush(){
+        synchronized (this){
+            scheduledFlush = null;
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            for (Consumer<RuntimeException> listener : errorListeners){
+                listener.accept(e);
+            }
+        }
+    }
+
+    private static <T> boolean containsIdentity(List<T> list, T item){
+        for (T t : list){
+            if (t == item){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class PendingUpdate<T> {
+
+        private T current;
+        private final T original;
+
+        private PendingUpdate(T current, T original){
+            this.current = current;
+            this.original = original;
+        }
+    }
+
+    private static final class SalaryTotals {
+
+        private final Department department;
+        private int headcount;
+        private double total;
+        private double min;
+        private double max;
+
+        private SalaryTotals(DepartmentSalarySummary summary){
+            this.department = summary.getDepartment();
+            this.headcount = summary.getHeadcount();
+            this.total = summary.getTotalSalary();
+            this.min = summary.getMinSalary();
+            this.max = summary.getMaxSalary();
+        }
+
+        private SalaryTotals(Department department){
+            this.department = department;
+            this.min = Double.MAX_VALUE;
+            this.max = -Double.MAX_VALUE;
+        }
+
+        private static boolean add(Map<Integer, SalaryTotals> totals, Seller seller){
+            if (seller.getDepartment() == null || seller.getDepartment().getId() == null){
+                return false;
+            }
+            SalaryTotals department = totals.computeIfAbsent(seller.getDepartment().getId(),
+                    id -> new SalaryTotals(seller.getDepartment()));
+            double salary = seller.getBaseSalary() == null ? 0.0 : seller.getBaseSalary();
+            department.headcount++;
+            department.total += salary;
+            department.min = Math.min(department.min, salary);
+            department.max = Math.max(department.max, salary);
+            return true;
+        }
+
+        private static boolean remove(Map<Integer, SalaryTotals> totals, Seller seller){
+            SalaryTotals department = seller.getDepartment() == null ? null : totals.get(seller.getDepartment().getId());
+            if (department == null || department.headcount == 0){
+                return false;
+            }
+            department.headcount--;
+            department.total -= seller.getBaseSalary() == null ? 0.0 : seller.getBaseSalary();
+            return true;
+        }
+
+        private DepartmentSalarySummary toSummary(){
+            return new DepartmentSalarySummary(department, headcount, total, total / headcount, min, max);
+        }
+    }
+
+    private static final class Changes {
+
+        private final List<Department> departmentInserts = new ArrayList<>();
+        private final Map<Integer, Department> departmentUpdates = new LinkedHashMap<>();
+        private final Set<Integer> departmentDeletes = new LinkedHashSet<>();
+        private final List<Seller> sellerInserts = new ArrayList<>();
+        private final Map<Integer, PendingUpdate<Seller>> sellerUpdates = new LinkedHashMap<>();
+        private final Map<Integer, Seller> sellerDeletes = new LinkedHashMap<>();
+
+        private int size(){
+            return departmentInserts.size() + departmentUpdates.size() + departmentDeletes.size()
+                    + sellerInserts.size() + sellerUpdates.size() + sellerDeletes.size();
+        }
+
+        private Changes mergeNewer(Changes newer){
+            Changes merged = new Changes();
+            merged.departmentInserts.addAll(departmentInserts);
+            for (Department department : newer.departmentInserts){
+                if (!containsIdentity(merged.departmentInserts, department)){
+                    merged.departmentInserts.add(department);
+                }
+            }
+            merged.departmentDeletes.addAll(departmentDeletes);
+            merged.departmentDeletes.addAll(newer.departmentDeletes);
+            merged.departmentUpdates.putAll(departmentUpdates);
+            merged.departmentUpdates.putAll(newer.departmentUpdates);
+            merged.departmentUpdates.keySet().removeAll(merged.departmentDeletes);
+
+            merged.sellerInserts.addAll(sellerInserts);
+            for (Seller seller : newer.sellerInserts){
+                if (!containsIdentity(merged.sellerInserts, seller)){
+                    merged.sellerInserts.add(seller);
+                }
+            }
+            merged.sellerDeletes.putAll(sellerDeletes);
+            merged.sellerDeletes.putAll(newer.sellerDeletes);
+            merged.sellerUpdates.putAll(sellerUpdates);
+            for (Map.Entry<Integer, PendingUpdate<Seller>> entry : newer.sellerUpdates.entrySet()){
+                PendingUpdate<Seller> older = merged.sellerUpdates.get(entry.getKey());
+                if (older == null){
+                    merged.sellerUpdates.put(entry.getKey(), entry.getValue());
+                }else {
+                    merged.sellerUpdates.put(entry.getKey(), new PendingUpdate<>(entry.getValue().current, older.original));
+                }
+            }
+            merged.sellerUpdates.keySet().removeAll(merged.sellerDeletes.keySet());
+            return merged;
+        }
+
+        private void dropTouchedBy(Changes newer){
+            departmentInserts.removeIf(d -> containsIdentity(newer.departmentInserts, d));
+            departmentUpdates.keySet().removeIf(id -> newer.departmentUpdates.containsKey(id)
+                    || newer.departmentDeletes.contains(id));
+            departmentDeletes.removeIf(id -> newer.departmentUpdates.containsKey(id)
+                    || newer.departmentDeletes.contains(id));
+            sellerInserts.removeIf(s -> containsIdentity(newer.sellerInserts, s));
+            for (Map.Entry<Integer, PendingUpdate<Seller>> entry : newer.sellerUpdates.entrySet()){
+                PendingUpdate<Seller> older = sellerUpdates.remove(entry.getKey());
+                if (older != null){
+                    newer.sellerUpdates.put(entry.getKey(), new PendingUpdate<>(entry.getValue().current, older.original));
+                }
+            }
+            sellerUpdates.keySet().removeAll(newer.sellerDeletes.keySet());
+            sellerDeletes.keySet().removeIf(id -> newer.sellerUpdates.containsKey(id)
+                    || newer.sellerDeletes.containsKey(id));
+        }
+    }
+}
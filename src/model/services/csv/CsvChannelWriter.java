@@ -0,0 +1,178 @@
+package model.services.csv;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+
+public class CsvChannelWriter implements Closeable, Flushable {
+
+    private final FileChannel channel;
+    private final CharsetEncoder encoder;
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+    private final char separator;
+    private final char[] digits = new char[20];
+    private boolean firstField = true;
+    private long bytesWritten = 0;
+
+    public CsvChannelWriter(FileChannel channel, Charset charset, int bufferSize){
+        this(channel, charset, bufferSize, ',');
+    }
+
+    public CsvChannelWriter(FileChannel channel, Charset charset, int bufferSize, char separator){
+        this.channel = channel;
+        this.encoder = charset.newEncoder();
+        this.chars = CharBuffer.allocate(bufferSize);
+        this.bytes = ByteBuffer.allocateDirect((int) Math.ceil(bufferSize * (double) encoder.maxBytesPerChar()));
+        this.separator = separator;
+    }
+
+    public void writeRecord(String... fields) throws IOException {
+        for (String field : fields){
+            writeField(field);
+        }
+        endRecord();
+    }
+
+    public void writeField(CharSequence value) throws IOException {
+        startField();
+        if (value == null){
+            return;
+        }
+        if (!needsQuotes(value)){
+            for (int i = 0; i < value.length(); i++){
+                put(value.charAt(i));
+            }
+            return;
+        }
+        put('"');
+        for (int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            if (c == '"'){
+                put('"');
+            }
+            put(c);
+        }
+        put('"');
+    }
+
+    public void writeField(long value) throws IOException {
+        startField();
+        writeDigits(value);
+    }
+
+    public void writeFixed(double value, int decimalPlaces) throws IOException {
+        startField();
+        long scale = 1;
+        for (int i = 0; i < decimalPlaces; i++){
+            scale *= 10;
+        }
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0){
+            put('-');
+        }
+        writeDigits(scaled / scale);
+        if (decimalPlaces > 0){
+            put('.');
+            long fraction = scaled % scale;
+            for (long unit = scale / 10; unit > 0; unit /= 10){
+                put((char) ('0' + fraction / unit % 10));
+            }
+        }
+    }
+
+    public void endRecord() throws IOException {
+        put('\n');
+        firstField = true;
+    }
+
+    public long getBytesWritten(){
+        return bytesWritten;
+    }
+
+    private void startField() throws IOException {
+        if (!firstField){
+            put(separator);
+        }
+        firstField = false;
+    }
+
+    private void writeDigits(long value) throws IOException {
+        if (value < 0){
+            put('-');
+        }
+        int n = digits.length;
+        do {
+            digits[--n] = (char) ('0' + Math.abs(value % 10));
+            value /= 10;
+        } while (value != 0);
+        while (n < digits.length){
+            put(digits[n++]);
+        }
+    }
+
+    private boolean needsQuotes(CharSequence value){
+        for (int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            if (c == separator || c == '"' || c == '\n' || c == '\r'){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void put(char c) throws IOException {
+        if (!chars.hasRemaining()){
+            encode(false);
+        }
+        chars.put(c);
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+        while (true){
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()){
+                drainBytes();
+            }else if (result.isUnderflow()){
+                break;
+            }else {
+                chars.compact();
+                throw new CharacterCodingException();
+            }
+        }
+        chars.compact();
+    }
+
+    private void drainBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()){
+            bytesWritten += channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        encode(false);
+        drainBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            encode(true);
+            encoder.flush(bytes);
+            drainBytes();
+        } finally {
+            channel.close();
+        }
+    }
+}
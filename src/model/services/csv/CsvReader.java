@@ -0,0 +1,116 @@
+package model.services.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final char separator;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder(64);
+    private final List<String> fields = new ArrayList<>(16);
+    private int position = 0;
+    private int limit = 0;
+    private long line = 1;
+    private long recordLine = 0;
+    private boolean started = false;
+
+    public CsvReader(Reader in){
+        this(in, ',');
+    }
+
+    public CsvReader(Reader in, char separator){
+        this.in = in;
+        this.separator = separator;
+    }
+
+    public String[] readRecord() throws IOException {
+        int c = read();
+        if (!started){
+            started = true;
+            if (c == '\uFEFF'){
+                c = read();
+            }
+        }
+        if (c < 0){
+            return null;
+        }
+        recordLine = line;
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean inQuotes = false;
+
+        while (true){
+            if (inQuotes){
+                if (c < 0){
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"'){
+                    int next = read();
+                    if (next == '"'){
+                        field.append('"');
+                    }else {
+                        inQuotes = false;
+                        c = next;
+                        continue;
+                    }
+                }else {
+                    if (c == '\n'){
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            }else if (c == separator){
+                fields.add(field.toString());
+                field.setLength(0);
+                quoted = false;
+            }else if (c == '\n' || c == '\r' || c < 0){
+                if (c == '\r'){
+                    int next = read();
+                    if (next != '\n' && next >= 0){
+                        position--;
+                    }
+                }
+                if (c >= 0){
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields.toArray(new String[0]);
+            }else if (c == '"' && field.length() == 0 && !quoted){
+                inQuotes = true;
+                quoted = true;
+            }else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    public long getRecordLine(){
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if (position == limit){
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0){
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,70 @@
+package model.services.csv;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+public class CsvWriter implements Closeable, Flushable {
+
+    private final Writer out;
+    private final char separator;
+
+    public CsvWriter(Writer out){
+        this(out, ',');
+    }
+
+    public CsvWriter(Writer out, char separator){
+        this.out = out;
+        this.separator = separator;
+    }
+
+    public void writeRecord(String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++){
+            if (i > 0){
+                out.write(separator);
+            }
+            writeField(fields[i]);
+        }
+        out.write('\n');
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null){
+            return;
+        }
+        if (!needsQuotes(value)){
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            if (c == '"'){
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private boolean needsQuotes(String value){
+        for (int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            if (c == separator || c == '"' || c == '\n' || c == '\r'){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
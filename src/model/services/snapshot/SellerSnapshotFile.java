@@ -0,0 +1,266 @@
+package model.services.snapshot;
+
+import model.entities.Department;
+import model.entities.Seller;
+import model.services.SellerSnapshot;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.zip.CRC32;
+
+public class SellerSnapshotFile {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x534E5053;
+    private static final int HEADER_SIZE = 56;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long NULL_DATE = Long.MIN_VALUE;
+
+    private SellerSnapshotFile(){
+    }
+
+    public static void write(Path target, SellerSnapshot snapshot, int sourceId) throws IOException {
+        write(target, snapshot.getChangeSequence(), snapshot.getCreatedAt(), snapshot.getDepartments(),
+                snapshot.getSellers().iterator(), sourceId);
+    }
+
+    public static void write(Path target, long changeSequence, long createdAt, List<Department> departments,
+                             Iterator<Seller> sellers, int sourceId) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        long payloadLength = 0;
+        int sellerCount = 0;
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            channel.position(HEADER_SIZE);
+
+            for (Department department : departments){
+                byte[] name = bytes(department.getName());
+                payloadLength += ensure(channel, buf, crc, 4 + 2 + length(name));
+                buf.putInt(department.getId());
+                putBytes(buf, name);
+            }
+            while (sellers.hasNext()){
+                Seller seller = sellers.next();
+                byte[] name = bytes(seller.getName());
+                byte[] email = bytes(seller.getEmail());
+                payloadLength += ensure(channel, buf, crc, 4 + 2 + length(name) + 2 + length(email) + 8 + 8 + 4);
+                buf.putInt(seller.getId());
+                putBytes(buf, name);
+                putBytes(buf, email);
+                buf.putLong(seller.getBirthDate() == null ? NULL_DATE : seller.getBirthDate().getTime());
+                buf.putDouble(seller.getBaseSalary() == null ? Double.NaN : seller.getBaseSalary());
+                buf.putInt(seller.getDepartment() == null || seller.getDepartment().getId() == null
+                        ? -1 : seller.getDepartment().getId());
+                sellerCount++;
+            }
+            payloadLength += drain(channel, buf, crc);
+
+            buf.clear();
+            buf.putInt(MAGIC);
+            buf.putInt(FORMAT_VERSION);
+            buf.putInt(sourceId);
+            buf.putInt(0);
+            buf.putLong(changeSequence);
+            buf.putLong(createdAt);
+            buf.putInt(departments.size());
+            buf.putInt(sellerCount);
+            buf.putLong(payloadLength);
+            buf.putLong(crc.getValue());
+            buf.flip();
+            channel.position(0);
+            while (buf.hasRemaining()){
+                channel.write(buf);
+            }
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static SellerSnapshot read(Path source, int sourceId) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)){
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE){
+                throw new IOException("Snapshot has an invalid size: " + size);
+            }
+            buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining()){
+                if (channel.read(buf) < 0){
+                    throw new IOException("Snapshot is truncated");
+                }
+            }
+            buf.flip();
+        }
+        if (buf.getInt() != MAGIC){
+            throw new IOException("Not a seller snapshot");
+        }
+        int version = buf.getInt();
+        if (version != FORMAT_VERSION){
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        if (buf.getInt() != sourceId){
+            throw new IOException("Snapshot was taken from a different database");
+        }
+        buf.getInt();
+        long changeSequence = buf.getLong();
+        long createdAt = buf.getLong();
+        int departmentCount = buf.getInt();
+        int sellerCount = buf.getInt();
+        long payloadLength = buf.getLong();
+        long checksum = buf.getLong();
+        if (payloadLength != buf.limit() - HEADER_SIZE || departmentCount < 0 || sellerCount < 0){
+            throw new IOException("Snapshot is truncated");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.slice());
+        if (crc.getValue() != checksum){
+            throw new IOException("Snapshot checksum mismatch");
+        }
+
+        try {
+            List<Department> departments = new ArrayList<>(departmentCount);
+            Map<Integer, Department> byId = new HashMap<>();
+            for (int i = 0; i < departmentCount; i++){
+                Department department = new Department(buf.getInt(), getString(buf));
+                departments.add(department);
+                byId.put(department.getId(), department);
+            }
+            int[] offsets = new int[sellerCount];
+            for (int i = 0; i < sellerCount; i++){
+                offsets[i] = buf.position();
+                buf.getInt();
+                skipString(buf);
+                skipString(buf);
+                buf.position(buf.position() + 8 + 8 + 4);
+            }
+            return new SellerSnapshot(changeSequence, createdAt, departments, new SellerRows(buf, offsets, byId));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Snapshot is truncated");
+        }
+    }
+
+    private static final class SellerRows extends AbstractList<Seller> implements RandomAccess {
+
+        private final ByteBuffer data;
+        private final int[] offsets;
+        private final Map<Integer, Department> departments;
+
+        private SellerRows(ByteBuffer data, int[] offsets, Map<Integer, Department> departments){
+            this.data = data;
+            this.offsets = offsets;
+            this.departments = departments;
+        }
+
+        @Override
+        public Seller get(int index) {
+            int position = offsets[index];
+            int id = data.getInt(position);
+            position += 4;
+            String name = getString(data, position);
+            position += 2 + Math.max(0, data.getShort(position));
+            String email = getString(data, position);
+            position += 2 + Math.max(0, data.getShort(position));
+            long birthDate = data.getLong(position);
+            double baseSalary = data.getDouble(position + 8);
+            int departmentId = data.getInt(position + 16);
+            Department department = departmentId < 0 ? null : departments.get(departmentId);
+            if (department == null && departmentId >= 0){
+                department = new Department(departmentId, null);
+            }
+            return new Seller(id, name, email,
+                    birthDate == NULL_DATE ? null : new Date(birthDate),
+                    Double.isNaN(baseSalary) ? null : baseSalary,
+                    department);
+        }
+
+        @Override
+        public int size() {
+            return offsets.length;
+        }
+    }
+
+    private static byte[] bytes(String value){
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value){
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putBytes(ByteBuffer buf, byte[] value){
+        if (value == null){
+            buf.putShort((short) -1);
+            return;
+        }
+        if (value.length > Short.MAX_VALUE){
+            throw new IllegalArgumentException("Value is too long for a snapshot: " + value.length + " bytes");
+        }
+        buf.putShort((short) value.length);
+        buf.put(value);
+    }
+
+    private static void skipString(ByteBuffer buf){
+        short length = buf.getShort();
+        if (length > 0){
+            buf.position(buf.position() + length);
+        }
+    }
+
+    private static String getString(ByteBuffer buf, int position){
+        short length = buf.getShort(position);
+        if (length < 0){
+            return null;
+        }
+        return new String(buf.array(), buf.arrayOffset() + position + 2, length, StandardCharsets.UTF_8);
+    }
+
+    private static String getString(ByteBuffer buf){
+        short length = buf.getShort();
+        if (length < 0){
+            return null;
+        }
+        byte[] value = new byte[length];
+        buf.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static long ensure(FileChannel channel, ByteBuffer buf, CRC32 crc, int needed) throws IOException {
+        if (needed > buf.capacity()){
+            throw new IllegalArgumentException("Record is too large for a snapshot: " + needed + " bytes");
+        }
+        return buf.remaining() < needed ? drain(channel, buf, crc) : 0;
+    }
+
+    private static long drain(FileChannel channel, ByteBuffer buf, CRC32 crc) throws IOException {
+        buf.flip();
+        long written = buf.remaining();
+        crc.update(buf.duplicate());
+        while (buf.hasRemaining()){
+            channel.write(buf);
+        }
+        buf.clear();
+        return written;
+    }
+}
@@ -1,24 +1,66 @@
 package sample;
 
+import db.DB;
+import gui.MainViewController;
+import gui.util.Alerts;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.ScrollPane;
 import javafx.stage.Stage;
+import model.services.UnitOfWork;
+
+import java.util.Optional;
 
 public class Main extends Application {
 
     private static Scene mainScene;
 
+    private boolean saveFailureShown = false;
+
     @Override
     public void start(Stage primaryStage) throws Exception{
-        ScrollPane root = FXMLLoader.load(getClass().getResource("/gui/MainView.fxml"));
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/gui/MainView.fxml"));
+        ScrollPane root = loader.load();
+        MainViewController mainViewController = loader.getController();
         root.setFitToHeight(true);
         root.setFitToWidth(true);
         primaryStage.setTitle("Sample JavaFX application");
         mainScene = new Scene(root, 600, 400);
         primaryStage.setScene(mainScene);
         primaryStage.show();
+
+        UnitOfWork.getInstance().addErrorListener(e -> Platform.runLater(() -> onSaveFailed(e, mainViewController)));
+    }
+
+    private void onSaveFailed(RuntimeException e, MainViewController mainViewController){
+        if (saveFailureShown){
+            return;
+        }
+        saveFailureShown = true;
+        ButtonType retry = new ButtonType("Retry");
+        ButtonType discard = new ButtonType("Discard changes");
+        Optional<ButtonType> choice = Alerts.showChoice("Error saving changes",
+                e.getMessage() + "\n\nOther changes are still being saved. The failed changes are kept until they are retried or discarded.", retry, discard);
+        saveFailureShown = false;
+        UnitOfWork unitOfWork = UnitOfWork.getInstance();
+        if (choice.isPresent() && choice.get() == discard){
+            unitOfWork.discardFailed();
+            mainViewController.refreshCurrentView();
+        }else {
+            unitOfWork.retryFailed();
+        }
+    }
+
+    @Override
+    public void stop() {
+        try {
+            UnitOfWork.closeInstance();
+        } finally {
+            DB.closeConnection();
+        }
     }
 
     public static Scene getMainScene(){